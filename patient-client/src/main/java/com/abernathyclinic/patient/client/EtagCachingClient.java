@@ -0,0 +1,104 @@
+package com.abernathyclinic.patient.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Feign {@link Client} keeping the responses carrying an {@code ETag}, and revalidating them instead of
+ * downloading them again.
+ * <p>
+ * A {@code GET} of a cached URL is sent with {@code If-None-Match}. When the server answers 304 Not Modified, the
+ * cached body is returned as a 200 response: the server skips serialization and the client skips the transfer
+ * and keeps the bytes it already has. Every request still reaches the server, which keeps authorizing it, so
+ * a cached response is never served stale or to a caller the server would refuse. A successful write to a URL
+ * evicts its cached response.
+ * </p>
+ */
+public class EtagCachingClient implements Client {
+
+    private final Client delegate;
+
+    private final Cache<String, CachedResponse> cache;
+
+    /**
+     * Constructs a new {@code EtagCachingClient}.
+     *
+     * @param delegate the client sending the requests.
+     * @param maxSize  the maximum number of cached responses; the least recently used are evicted first.
+     */
+    public EtagCachingClient(Client delegate, int maxSize) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            Response response = delegate.execute(request, options);
+            if (response.status() < 400) {
+                cache.invalidate(request.url());
+            }
+            return response;
+        }
+        CachedResponse cached = cache.getIfPresent(request.url());
+        Response response = delegate.execute(cached == null ? request : withIfNoneMatch(request, cached.etag()), options);
+        if (response.status() == 304 && cached != null) {
+            response.close();
+            return Response.builder()
+                    .status(200)
+                    .reason("OK")
+                    .headers(cached.headers())
+                    .body(cached.body())
+                    .request(request)
+                    .build();
+        }
+        String etag = firstHeader(response, "ETag");
+        if (response.status() != 200 || etag == null || response.body() == null) {
+            if (cached != null) {
+                cache.invalidate(request.url());
+            }
+            return response;
+        }
+        byte[] body;
+        try (InputStream in = response.body().asInputStream()) {
+            body = in.readAllBytes();
+        }
+        cache.put(request.url(), new CachedResponse(etag, response.headers(), body));
+        return response.toBuilder().body(body).build();
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return the estimated number of cached responses.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static Request withIfNoneMatch(Request request, String etag) {
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(request.headers());
+        headers.put("If-None-Match", List.of(etag));
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(), request.charset(),
+                request.requestTemplate());
+    }
+
+    private static String firstHeader(Response response, String name) {
+        Collection<String> values = response.headers().get(name);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private record CachedResponse(String etag, Map<String, Collection<String>> headers, byte[] body) {
+    }
+}
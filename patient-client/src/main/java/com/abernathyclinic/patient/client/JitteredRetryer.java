@@ -0,0 +1,86 @@
+package com.abernathyclinic.patient.client;
+
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Feign {@link Retryer} waiting a random delay before each retry.
+ * <p>
+ * The delay is drawn uniformly between 0 and a ceiling that starts at the base backoff and doubles at each
+ * retry, up to the maximum backoff ("full jitter"): clients failing together spread their retries instead of
+ * hitting a recovering server in waves. A {@code Retry-After} sent by the server is honoured when it fits within
+ * the maximum backoff; a longer one fails the request at once.
+ * </p>
+ * <p>
+ * Only idempotent requests are retried, except when the connection could not be opened, in which case the
+ * server never saw the request.
+ * </p>
+ */
+public class JitteredRetryer implements Retryer {
+
+    private static final Set<Request.HttpMethod> IDEMPOTENT_METHODS = EnumSet.of(Request.HttpMethod.GET,
+            Request.HttpMethod.HEAD, Request.HttpMethod.OPTIONS, Request.HttpMethod.PUT, Request.HttpMethod.DELETE);
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private int attempt = 1;
+
+    /**
+     * Constructs a new {@code JitteredRetryer}.
+     *
+     * @param maxAttempts the maximum number of attempts, the first one included.
+     * @param backoff     the ceiling of the delay before the first retry.
+     * @param maxBackoff  the ceiling of the delay before any retry.
+     */
+    public JitteredRetryer(int maxAttempts, Duration backoff, Duration maxBackoff) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (attempt >= maxAttempts || !isRetryable(e)) {
+            throw e;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(ceiling(attempt) + 1);
+        if (e.retryAfter() != null) {
+            long retryAfter = e.retryAfter() - System.currentTimeMillis();
+            if (retryAfter > maxBackoffMillis) {
+                throw e;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+        attempt++;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @Override
+    public Retryer clone() {
+        return new JitteredRetryer(maxAttempts, Duration.ofMillis(backoffMillis), Duration.ofMillis(maxBackoffMillis));
+    }
+
+    long ceiling(int attempt) {
+        return Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 30));
+    }
+
+    private static boolean isRetryable(RetryableException e) {
+        return e.method() == null || IDEMPOTENT_METHODS.contains(e.method()) || e.getCause() instanceof ConnectException;
+    }
+}
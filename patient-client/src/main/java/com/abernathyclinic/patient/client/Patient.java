@@ -0,0 +1,30 @@
+package com.abernathyclinic.patient.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+
+/**
+ * A patient as exchanged with the patient API.
+ * <p>
+ * Fields unknown to this version of the client are ignored, so the API can add fields without breaking
+ * its consumers. {@code id}, {@code lastModified}, {@code createdAt} and {@code version} are set by the API.
+ * </p>
+ *
+ * @param id              the ID of the patient, {@code null} for a patient to create.
+ * @param nom             the last name.
+ * @param prenom          the first name.
+ * @param dateDeNaissance the date of birth.
+ * @param genre           the gender, {@code M} or {@code F}.
+ * @param adresse         the postal address, optional.
+ * @param telephone       the phone number, optional.
+ * @param lastModified    the date of the last modification.
+ * @param createdAt       the date of creation.
+ * @param whoLastModified the user who last modified the patient.
+ * @param version         the version of the patient, incremented by every modification.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Patient(Long id, String nom, String prenom, LocalDate dateDeNaissance, String genre, String adresse,
+                      String telephone, LocalDate lastModified, LocalDate createdAt, String whoLastModified,
+                      long version) {
+}
@@ -0,0 +1,78 @@
+package com.abernathyclinic.patient.client;
+
+import feign.Headers;
+import feign.Param;
+import feign.RequestLine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Client of the patient API ({@code /api/patients}), created by a {@link PatientClientFactory}.
+ * <p>
+ * Errors are thrown as {@link feign.FeignException}; reads of an unknown patient return an empty result
+ * instead. Reads, updates and deletes are retried on connection failures and on 429, 502, 503 and 504
+ * responses; creations only when the connection could not be opened.
+ * </p>
+ */
+@Headers("Accept: application/json")
+public interface PatientClient {
+
+    /**
+     * Retrieves a patient by their ID.
+     *
+     * @param id the ID of the patient.
+     * @return the patient, or empty if no patient has this ID.
+     */
+    @RequestLine("GET /api/patients/{id}")
+    Optional<Patient> getPatient(@Param("id") long id);
+
+    /**
+     * Retrieves several patients by their IDs in a single request.
+     *
+     * @param ids the IDs of the patients, at most 1000.
+     * @return the patients found, in the order of {@code ids}; unknown IDs are skipped.
+     */
+    @RequestLine("GET /api/patients/batch?ids={ids}")
+    List<Patient> getPatients(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves one page of patients, ordered by ID.
+     *
+     * @param after the ID of the last patient of the previous page, or {@code null} to start from the beginning.
+     * @param limit the maximum number of patients to return, between 1 and 1000.
+     * @return the patients of the page, empty after the last page.
+     */
+    @RequestLine("GET /api/patients?after={after}&limit={limit}")
+    List<Patient> getPatientsAfter(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * Creates a patient.
+     *
+     * @param patient the patient to create, without ID.
+     * @return the created patient, with its ID.
+     */
+    @RequestLine("POST /api/patients")
+    @Headers("Content-Type: application/json")
+    Patient createPatient(Patient patient);
+
+    /**
+     * Replaces the information of an existing patient.
+     *
+     * @param id      the ID of the patient.
+     * @param patient the new information of the patient, with the same ID.
+     * @return the updated patient.
+     */
+    @RequestLine("PUT /api/patients/{id}")
+    @Headers("Content-Type: application/json")
+    Patient updatePatient(@Param("id") long id, Patient patient);
+
+    /**
+     * Deletes a patient.
+     *
+     * @param id the ID of the patient.
+     */
+    @RequestLine("DELETE /api/patients/{id}")
+    void deletePatient(@Param("id") long id);
+}
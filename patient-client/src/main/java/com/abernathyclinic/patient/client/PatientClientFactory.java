@@ -0,0 +1,130 @@
+package com.abernathyclinic.patient.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import feign.jackson.JacksonDecoder;
+import feign.jackson.JacksonEncoder;
+import feign.optionals.OptionalDecoder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link PatientClient}s sharing one pool of HTTP connections to the patient API.
+ * <p>
+ * Requests go through Apache HttpClient 5: connections are kept alive and reused across requests and clients,
+ * responses are requested and decoded with gzip, and failed requests are retried by a {@link JitteredRetryer}.
+ * Responses carrying an {@code ETag} are kept by an {@link EtagCachingClient} and revalidated on the next read.
+ * </p>
+ * <p>
+ * Create one factory per application, for example as a Spring bean, and close it on shutdown to release
+ * its connections:
+ * </p>
+ * <pre>
+ * &#64;Bean(destroyMethod = "close")
+ * PatientClientFactory patientClientFactory() {
+ *     return new PatientClientFactory(PatientClientSettings.defaults("http://patient:8080"));
+ * }
+ * </pre>
+ */
+public class PatientClientFactory implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final PatientClientSettings settings;
+
+    private final CloseableHttpClient httpClient;
+
+    private final Client client;
+
+    /**
+     * Constructs a new {@code PatientClientFactory} and its connection pool.
+     *
+     * @param settings the settings of the pool and of the clients.
+     */
+    public PatientClientFactory(PatientClientSettings settings) {
+        this.settings = settings;
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.readTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        TimeValue keepAlive = TimeValue.of(settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive)
+                .disableAutomaticRetries() // Les nouvelles tentatives sont faites par JitteredRetryer
+                .build();
+        Client pooled = new ApacheHttp5Client(httpClient);
+        this.client = settings.cacheSize() > 0 ? new EtagCachingClient(pooled, settings.cacheSize()) : pooled;
+    }
+
+    /**
+     * Creates a client sending the requests of its caller with the given bearer token.
+     *
+     * @param tokenSupplier supplies the JWT sent with each request, called once per request.
+     * @return the client.
+     */
+    public PatientClient create(Supplier<String> tokenSupplier) {
+        return feignBuilder(settings, tokenSupplier).client(client).target(PatientClient.class, settings.baseUrl());
+    }
+
+    /**
+     * Returns a Feign builder configured for the patient API, without the HTTP client: JSON encoding,
+     * empty results for unknown patients, jittered retries and the bearer token.
+     * <p>
+     * Use it to plug another {@link Client}; {@link #create(Supplier)} is the pooled one.
+     * </p>
+     *
+     * @param settings      the timeouts and retry settings.
+     * @param tokenSupplier supplies the JWT sent with each request, called once per request.
+     * @return the builder, to be targeted at {@link PatientClient}.
+     */
+    public static Feign.Builder feignBuilder(PatientClientSettings settings, Supplier<String> tokenSupplier) {
+        return Feign.builder()
+                .encoder(new JacksonEncoder(OBJECT_MAPPER))
+                .decoder(new OptionalDecoder(new JacksonDecoder(OBJECT_MAPPER)))
+                .dismiss404()
+                .errorDecoder(new PatientErrorDecoder())
+                .retryer(new JitteredRetryer(settings.maxAttempts(), settings.retryBackoff(), settings.maxRetryBackoff()))
+                .options(new Request.Options(settings.connectTimeout(), settings.readTimeout(), true))
+                .requestInterceptor(template -> template.header("Authorization", "Bearer " + tokenSupplier.get()));
+    }
+
+    /**
+     * Closes the connection pool. Clients created by this factory can no longer be used.
+     */
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.abernathyclinic.patient.client;
+
+import java.time.Duration;
+
+/**
+ * Settings of the clients created by a {@link PatientClientFactory}.
+ *
+ * @param baseUrl         the URL of the patient API, without the {@code /api/patients} path.
+ * @param maxConnections  the maximum number of pooled connections to the API.
+ * @param connectTimeout  the timeout for opening a connection.
+ * @param readTimeout     the timeout for waiting for response data.
+ * @param keepAlive       how long an idle connection is kept for reuse; shorter than the server keep-alive timeout
+ *                        (20 seconds for Tomcat) so that the client never reuses a connection the server closed.
+ * @param maxAttempts     the maximum number of attempts of a request, retries included.
+ * @param retryBackoff    the upper bound of the first random delay before a retry, doubled at each retry.
+ * @param maxRetryBackoff the upper bound of any delay before a retry.
+ * @param cacheSize       the maximum number of responses kept for revalidation with their ETag, 0 to disable.
+ */
+public record PatientClientSettings(String baseUrl, int maxConnections, Duration connectTimeout, Duration readTimeout,
+                                    Duration keepAlive, int maxAttempts, Duration retryBackoff,
+                                    Duration maxRetryBackoff, int cacheSize) {
+
+    /**
+     * Returns the default settings: 50 connections, 2 seconds to connect, 10 seconds to read, idle connections
+     * kept 15 seconds, 3 attempts with a backoff from 100 ms up to 1 second, and 10,000 cached responses.
+     *
+     * @param baseUrl the URL of the patient API, such as {@code http://patient:8080}.
+     * @return the default settings.
+     */
+    public static PatientClientSettings defaults(String baseUrl) {
+        return new PatientClientSettings(baseUrl, 50, Duration.ofSeconds(2), Duration.ofSeconds(10),
+                Duration.ofSeconds(15), 3, Duration.ofMillis(100), Duration.ofSeconds(1), 10_000);
+    }
+
+    /**
+     * Returns a copy of these settings with another response cache size.
+     *
+     * @param cacheSize the maximum number of cached responses, 0 to disable the cache.
+     * @return the new settings.
+     */
+    public PatientClientSettings withCacheSize(int cacheSize) {
+        return new PatientClientSettings(baseUrl, maxConnections, connectTimeout, readTimeout, keepAlive,
+                maxAttempts, retryBackoff, maxRetryBackoff, cacheSize);
+    }
+}
@@ -0,0 +1,29 @@
+package com.abernathyclinic.patient.client;
+
+import feign.FeignException;
+import feign.Response;
+import feign.RetryableException;
+import feign.codec.ErrorDecoder;
+
+import java.util.Set;
+
+/**
+ * Decodes error responses of the patient API, turning the statuses of a temporarily unavailable server into
+ * a {@link RetryableException} for the {@link JitteredRetryer}.
+ */
+class PatientErrorDecoder implements ErrorDecoder {
+
+    static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+
+    private final ErrorDecoder delegate = new ErrorDecoder.Default();
+
+    @Override
+    public Exception decode(String methodKey, Response response) {
+        Exception exception = delegate.decode(methodKey, response);
+        if (exception instanceof RetryableException || !RETRYABLE_STATUSES.contains(response.status())) {
+            return exception;
+        }
+        return new RetryableException(response.status(), exception.getMessage(), response.request().httpMethod(),
+                (FeignException) exception, (Long) null, response.request());
+    }
+}
@@ -0,0 +1,151 @@
+package com.abernathyclinic.patient.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientClientTest {
+
+    private static final String PATIENT_JSON = """
+            {"id": 1, "nom": "TestNone", "prenom": "Test", "dateDeNaissance": "1966-12-31", "genre": "F",
+             "telephone": "100-222-3333", "version": 3, "someFutureField": true}
+            """;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+
+    private PatientClientFactory factory;
+
+    private PatientClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/patients", this::handle);
+        server.start();
+        PatientClientSettings settings = new PatientClientSettings("http://localhost:" + server.getAddress().getPort(),
+                4, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(5), 3, Duration.ofMillis(10),
+                Duration.ofMillis(50), 100);
+        factory = new PatientClientFactory(settings);
+        client = factory.create(() -> "token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testGetPatientRevalidatesWithEtag() {
+        Optional<Patient> first = client.getPatient(1L);
+        Optional<Patient> second = client.getPatient(1L);
+
+        assertEquals(Optional.of(LocalDate.of(1966, 12, 31)), first.map(Patient::dateDeNaissance));
+        assertEquals(first, second);
+        assertEquals(List.of("GET /api/patients/1 Bearer token -", "GET /api/patients/1 Bearer token \"3\""), requests);
+    }
+
+    @Test
+    void testWriteEvictsCachedResponse() {
+        client.getPatient(1L);
+        client.deletePatient(1L);
+        client.getPatient(1L);
+
+        assertEquals("GET /api/patients/1 Bearer token -", requests.get(2));
+    }
+
+    @Test
+    void testGetUnknownPatient() {
+        assertEquals(Optional.empty(), client.getPatient(42L));
+        assertEquals(List.of(), client.getPatientsAfter(10_000L, 100));
+    }
+
+    @Test
+    void testGetPatientsSendsEveryId() {
+        List<Patient> patients = client.getPatients(List.of(1L, 2L));
+
+        assertEquals(1, patients.size());
+        assertEquals("GET /api/patients/batch?ids=1&ids=2 Bearer token -", requests.get(0));
+    }
+
+    @Test
+    void testReadIsRetriedWhenUnavailable() {
+        failuresLeft.put("/api/patients/1", new AtomicInteger(2));
+
+        assertTrue(client.getPatient(1L).isPresent());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void testReadGivesUpAfterMaxAttempts() {
+        failuresLeft.put("/api/patients/1", new AtomicInteger(3));
+
+        FeignException e = assertThrows(FeignException.class, () -> client.getPatient(1L));
+        assertEquals(503, e.status());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void testCreationIsNotRetried() {
+        failuresLeft.put("/api/patients", new AtomicInteger(1));
+
+        assertThrows(FeignException.class, () -> client.createPatient(
+                new Patient(null, "TestNone", "Test", LocalDate.of(1966, 12, 31), "F", null, null, null, null, null, 0)));
+        assertEquals(1, requests.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(exchange.getRequestMethod() + " " + path + (query == null ? "" : "?" + query) + " "
+                + exchange.getRequestHeaders().getFirst("Authorization") + " " + (ifNoneMatch == null ? "-" : ifNoneMatch));
+        exchange.getRequestBody().readAllBytes();
+        AtomicInteger failures = failuresLeft.get(path);
+        if (failures != null && failures.getAndDecrement() > 0) {
+            send(exchange, 503, null);
+        } else if (exchange.getRequestMethod().equals("DELETE")) {
+            send(exchange, 200, null);
+        } else if (path.equals("/api/patients/1")) {
+            exchange.getResponseHeaders().add("ETag", "\"3\"");
+            send(exchange, "\"3\"".equals(ifNoneMatch) ? 304 : 200, "\"3\"".equals(ifNoneMatch) ? null : PATIENT_JSON);
+        } else if (path.equals("/api/patients/batch")) {
+            send(exchange, 200, "[" + PATIENT_JSON + "]");
+        } else {
+            send(exchange, 404, null);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
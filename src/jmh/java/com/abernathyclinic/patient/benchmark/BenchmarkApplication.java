@@ -0,0 +1,90 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.PatientApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application on a random port against an in-memory H2 database, or an external one, with quiet logging,
+ * for benchmarks that need the full Spring context.
+ */
+final class BenchmarkApplication {
+
+    private static final String[] DATABASE_ARGS = {
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:patientdb;MODE=MariaDB;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.docker.compose.enabled=false"
+    };
+
+    private static final String[] EXTERNAL_DATABASE_ARGS = {
+            "--server.port=0",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.docker.compose.enabled=false"
+    };
+
+    private static final String[] QUIET_LOGGING_ARGS = {
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.org.springframework.web.client.RestTemplate=WARN",
+            "--logging.level.org.springframework.http.client=WARN"
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        return start(context -> {
+        }, extraArgs);
+    }
+
+    static ConfigurableApplicationContext start(ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                String... extraArgs) {
+        return run(initializer, concat(DATABASE_ARGS, concat(QUIET_LOGGING_ARGS, extraArgs)));
+    }
+
+    /**
+     * Starts the application with the logging configuration of its active profiles instead of quiet logging.
+     */
+    static ConfigurableApplicationContext startWithProfileLogging(String... extraArgs) {
+        return run(context -> {
+        }, concat(DATABASE_ARGS, extraArgs));
+    }
+
+    /**
+     * Starts the application with quiet logging against an external database instead of H2, with the schema
+     * created on startup and dropped on shutdown.
+     */
+    static ConfigurableApplicationContext startOnDatabase(String url, String username, String password,
+                                                          String... extraArgs) {
+        String[] databaseArgs = concat(EXTERNAL_DATABASE_ARGS, new String[]{
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password
+        });
+        return run(context -> {
+        }, concat(databaseArgs, concat(QUIET_LOGGING_ARGS, extraArgs)));
+    }
+
+    private static ConfigurableApplicationContext run(
+            ApplicationContextInitializer<ConfigurableApplicationContext> initializer, String[] args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(PatientApplication.class)
+                .initializers(initializer)
+                .run(args);
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = new String[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+}
@@ -0,0 +1,114 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.security.JwtAuthenticationFilter;
+import com.abernathyclinic.patient.security.JwtPrincipal;
+import com.abernathyclinic.patient.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time and, with {@code -prof gc}, the allocation of authenticating a request whose JWT is
+ * already in the {@link JwtService} cache.
+ * <p>
+ * {@code doFilter} runs {@link JwtAuthenticationFilter} as a servlet container would, with interned
+ * authorities. {@code legacyDoFilter} runs a copy of the filter as it was before: a stream building
+ * new authorities for each request, and a {@link UsernamePasswordAuthenticationToken} copying them.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private JwtService jwtService;
+
+    private JwtAuthenticationFilter filter;
+
+    private LegacyJwtAuthenticationFilter legacyFilter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        jwtService.setSecretKey(JwtVerificationBenchmark.SECRET_KEY);
+        jwtService.setJwtExpiration(TimeUnit.HOURS.toMillis(1));
+        token = jwtService.generateToken(Map.of("roles", List.of("Organizer")),
+                new User(1L, "organizer_user", "password1", "Organizer"));
+        filter = new JwtAuthenticationFilter(jwtService, new SimpleMeterRegistry());
+        legacyFilter = new LegacyJwtAuthenticationFilter(jwtService, new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("GET", "/api/patients");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void doFilter() throws ServletException, IOException {
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void legacyDoFilter() throws ServletException, IOException {
+        legacyFilter.doFilter(request, response, NO_OP_CHAIN);
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * {@link JwtAuthenticationFilter} as it authenticated requests before authorities were interned.
+     */
+    static final class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+        private final JwtService jwtService;
+
+        private final Timer validTokens;
+
+        LegacyJwtAuthenticationFilter(JwtService jwtService, MeterRegistry meterRegistry) {
+            this.jwtService = jwtService;
+            this.validTokens = meterRegistry.timer(JwtAuthenticationFilter.VERIFICATION_TIMER, "outcome", "valid");
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String jwt = request.getHeader("Authorization").substring(7);
+            long start = System.nanoTime();
+            JwtPrincipal principal = jwtService.verify(jwt).orElseThrow();
+            validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            List<SimpleGrantedAuthority> authorities = principal.roles().stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .toList();
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(principal.username(), null, authorities));
+            filterChain.doFilter(request, response);
+        }
+    }
+}
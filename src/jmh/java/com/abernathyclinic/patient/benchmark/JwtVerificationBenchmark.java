@@ -0,0 +1,131 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.security.JwtPrincipal;
+import com.abernathyclinic.patient.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JwtService} token generation, and compares the per-request cost of authenticating
+ * a JWT before and after {@link JwtService#verify(String)}.
+ * <p>
+ * {@code legacyTriplePass} reproduces the former filter path: three parses of the same token, each
+ * decoding the secret and building a new parser. {@code singlePass} is a cache miss on the new path
+ * and {@code cachedVerify} a cache hit.
+ * </p>
+ * <p>
+ * The rejection benchmarks send tokens that fail verification. {@code rejectExpired} uses a distinct expired
+ * token on each call, which the header and payload pre-check rejects. {@code rejectForgedOnce} uses a distinct
+ * token with a forged signature, which needs a full verification. {@code rejectForgedRepeated} sends the same
+ * forged token again, which the cache of rejected tokens answers.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    static final String SECRET_KEY =
+            "016ecc551ceabb166a83547f0454572c1a51879ade2e5a09beb46813d3e8ca6cf3f96041782346b74eb1f8054bb6e71385f7c3d32a4ffa22171c86c148941f1a85fc188105a80f6ee41d9929c28a752e7bd84ad964621c0e93ba2cb4e1c6619550f24d6534c4cba30dfdb25b36862abae4749dc232836a5675d717d0ff84fd45114ad2149a24231854f4b7343b9bd2b3f49e304442b83b1c9b6736850afae3b44bf265d376a9bc4c0894b665da6b35063c8675fcbd223b2b5d613d5d23164e5041b5b3d33e83cd7010e21a1385832e1bd7b51c84e30822b9dd842dff41d61cc42e11b0d5806ec70a9f50a4e1f73a0fe34715b5116a8196d7939c154f580c5c4f";
+
+    private JwtService jwtService;
+
+    private JwtParser parser;
+
+    private String token;
+
+    private User user;
+
+    private String forgedToken;
+
+    private String header;
+
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        jwtService.setSecretKey(SECRET_KEY);
+        jwtService.setJwtExpiration(TimeUnit.HOURS.toMillis(1));
+        user = new User(1L, "organizer_user", "password1", "Organizer");
+        token = jwtService.generateToken(Map.of("roles", List.of("Organizer")), user);
+        header = token.substring(0, token.indexOf('.'));
+        forgedToken = forge(Instant.now().plus(1, ChronoUnit.HOURS), 0);
+        parser = Jwts.parserBuilder().setSigningKey(legacySignInKey()).setAllowedClockSkewSeconds(60).build();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(Map.of("roles", List.of("Organizer")), user);
+    }
+
+    @Benchmark
+    public void legacyTriplePass(Blackhole blackhole) {
+        Claims validated = Jwts.parserBuilder().setSigningKey(legacySignInKey()).build()
+                .parseClaimsJws(token).getBody();
+        blackhole.consume(validated.getExpiration().after(new Date()));
+        blackhole.consume(Jwts.parserBuilder().setSigningKey(legacySignInKey()).setAllowedClockSkewSeconds(60).build()
+                .parseClaimsJws(token).getBody().getSubject());
+        blackhole.consume(Jwts.parserBuilder().setSigningKey(legacySignInKey()).setAllowedClockSkewSeconds(60).build()
+                .parseClaimsJws(token).getBody().get("roles", List.class));
+    }
+
+    @Benchmark
+    public Claims singlePass() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> cachedVerify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> rejectExpired() {
+        return jwtService.verify(forge(Instant.now().minus(1, ChronoUnit.HOURS), counter++));
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> rejectForgedOnce() {
+        return jwtService.verify(forge(Instant.now().plus(1, ChronoUnit.HOURS), counter++));
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> rejectForgedRepeated() {
+        return jwtService.verify(forgedToken);
+    }
+
+    /**
+     * Builds a token with a valid header, the given expiration and a signature that does not match.
+     */
+    private String forge(Instant expiration, long id) {
+        String payload = "{\"sub\":\"organizer_user\",\"jti\":\"" + id + "\",\"exp\":" + expiration.getEpochSecond() + "}";
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return header + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(new byte[32]);
+    }
+
+    private static Key legacySignInKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    }
+}
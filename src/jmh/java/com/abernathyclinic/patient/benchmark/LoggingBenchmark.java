@@ -0,0 +1,88 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.service.JwtService;
+import com.abernathyclinic.patient.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a database-backed HTTP request under each logging configuration.
+ * <p>
+ * {@code local} is the development profile as shipped: DEBUG everywhere and {@code show-sql}, written
+ * synchronously. {@code prod} adds the production profile: INFO, JSON lines through an async appender.
+ * {@code prod-marked} sends the request logging header on every request, so each one logs its SQL
+ * and summary within the rate limit. Console output goes to {@code target/logging-benchmark-<logging>.log}
+ * rather than the terminal, the way a container runtime would collect it.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final int SEEDED_PATIENTS = 1000;
+
+    @Param({"local", "prod", "prod-marked"})
+    public String logging;
+
+    private PrintStream originalOut;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest.Builder request;
+
+    private String baseUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        originalOut = System.out;
+        System.setOut(new PrintStream(new FileOutputStream("target/logging-benchmark-" + logging + ".log"), true));
+        context = BenchmarkApplication.startWithProfileLogging(
+                "--spring.profiles.active=" + (logging.equals("local") ? "local" : "local,prod"));
+        PatientService patientService = context.getBean(PatientService.class);
+        for (int i = 0; i < SEEDED_PATIENTS; i++) {
+            patientService.saveOrUpdatePatient(PatientServiceCrudBenchmark.newPatient());
+        }
+        String token = context.getBean(JwtService.class).generateToken(
+                Map.of("roles", List.of("Organizer")), new User(1L, "organizer_user", "password1", "Organizer"));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                + "/api/patients";
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder().header("Authorization", "Bearer " + token);
+        if (logging.equals("prod-marked")) {
+            request.header("X-Debug-Logging", "true");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.out.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public int readPage() throws IOException, InterruptedException {
+        URI uri = URI.create(baseUrl + "?limit=10&after=" + ThreadLocalRandom.current().nextInt(SEEDED_PATIENTS - 10));
+        return client.send(request.copy().uri(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
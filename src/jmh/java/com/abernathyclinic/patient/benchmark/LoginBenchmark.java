@@ -0,0 +1,69 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.repository.UserRepository;
+import com.abernathyclinic.patient.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures password login throughput through the {@link AuthenticationManager}, against an in-memory H2 database.
+ * <p>
+ * {@code login} is the usual case, where the user is served from the {@link UserService} cache and only
+ * bcrypt runs. {@code loginUncached} evicts the user first, adding the database lookup. Four threads log in
+ * concurrently, while bcrypt runs on the {@code security.password.threads} threads of the password encoder.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoginBenchmark {
+
+    static final String USERNAME = "organizer_user";
+
+    static final String PASSWORD = "password1";
+
+    @Param({"4", "10"})
+    int bcryptStrength;
+
+    private ConfigurableApplicationContext context;
+
+    private AuthenticationManager authenticationManager;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("--security.password.bcrypt-strength=" + bcryptStrength);
+        context.getBean(UserRepository.class).save(new User(null, USERNAME,
+                new BCryptPasswordEncoder(bcryptStrength).encode(PASSWORD), "Organizer"));
+        authenticationManager = context.getBean(AuthenticationManager.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication login() {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+    }
+
+    @Benchmark
+    public Authentication loginUncached() {
+        userService.evict(USERNAME);
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+    }
+}
@@ -0,0 +1,90 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.config.CacheConfig;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the patients of a list one request per patient with a single batch lookup, and measures
+ * concurrent cache misses on the same patient with and without lookup coalescing, against an in-memory H2
+ * database. The patients cache is cleared or evicted before each read so that every lookup reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientBatchLookupBenchmark {
+
+    static final int SEEDED_PATIENTS = 10_000;
+
+    static final int LIST_SIZE = 20;
+
+    static final long HOT_PATIENT_ID = 1L;
+
+    @Param({"PT0S", "PT0.001S"})
+    public String coalesceWindow;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientService patientService;
+
+    private Cache cache;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("--patient.lookup.coalesce-window=" + coalesceWindow);
+        patientService = context.getBean(PatientService.class);
+        cache = context.getBean(CacheManager.class).getCache(CacheConfig.PATIENTS_CACHE);
+        for (int i = 0; i < SEEDED_PATIENTS; i++) {
+            patientService.saveOrUpdatePatient(PatientServiceCrudBenchmark.newPatient());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Patient> readListOneByOne() {
+        cache.clear();
+        List<Patient> patients = new ArrayList<>(LIST_SIZE);
+        for (Long id : randomIds()) {
+            patientService.getPatientById(id).ifPresent(patients::add);
+        }
+        return patients;
+    }
+
+    @Benchmark
+    public List<Patient> readListInOneBatch() {
+        cache.clear();
+        return patientService.getPatientsByIds(randomIds());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Patient> readHotPatientConcurrently() {
+        cache.evict(HOT_PATIENT_ID);
+        return patientService.getPatientById(HOT_PATIENT_ID);
+    }
+
+    private static List<Long> randomIds() {
+        List<Long> ids = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            ids.add(ThreadLocalRandom.current().nextLong(1, SEEDED_PATIENTS + 1));
+        }
+        return ids;
+    }
+}
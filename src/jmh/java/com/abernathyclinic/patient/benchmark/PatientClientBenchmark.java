@@ -0,0 +1,86 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.client.Patient;
+import com.abernathyclinic.patient.client.PatientClient;
+import com.abernathyclinic.patient.client.PatientClientFactory;
+import com.abernathyclinic.patient.client.PatientClientSettings;
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.service.JwtService;
+import com.abernathyclinic.patient.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of {@link PatientClient} calls against a locally started instance, per HTTP client.
+ * <p>
+ * {@code url-connection} is Feign's default client on {@code HttpURLConnection}, {@code hc5} the pooled
+ * Apache HttpClient 5 of {@link PatientClientFactory} with gzip, and {@code hc5-etag} adds the ETag response
+ * cache. All three share the same encoding, retries and authentication; four threads call the API at once.
+ * The long warmup lets the JIT finish compiling the server and client paths, which takes minutes on one CPU.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 8, time = 10)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class PatientClientBenchmark {
+
+    private static final int SEEDED_PATIENTS = 1000;
+
+    @Param({"url-connection", "hc5", "hc5-etag"})
+    public String client;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientClientFactory factory;
+
+    private PatientClient patientClient;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        PatientService patientService = context.getBean(PatientService.class);
+        for (int i = 0; i < SEEDED_PATIENTS; i++) {
+            patientService.saveOrUpdatePatient(PatientServiceCrudBenchmark.newPatient());
+        }
+        String token = context.getBean(JwtService.class).generateToken(
+                Map.of("roles", List.of("Organizer")), new User(1L, "organizer_user", "password1", "Organizer"));
+        PatientClientSettings settings = PatientClientSettings.defaults(
+                "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+        if (client.equals("url-connection")) {
+            patientClient = PatientClientFactory.feignBuilder(settings, () -> token)
+                    .target(PatientClient.class, settings.baseUrl());
+        } else {
+            factory = new PatientClientFactory(client.equals("hc5") ? settings.withCacheSize(0) : settings);
+            patientClient = factory.create(() -> token);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (factory != null) {
+            factory.close();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Patient> getPatient() {
+        return patientClient.getPatient(ThreadLocalRandom.current().nextLong(1, SEEDED_PATIENTS + 1));
+    }
+
+    @Benchmark
+    public List<Patient> getPage() {
+        return patientClient.getPatientsAfter(ThreadLocalRandom.current().nextLong(0, SEEDED_PATIENTS - 100), 100);
+    }
+}
@@ -0,0 +1,65 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the CPU cost and the size on the wire of patient lists for each response encoding:
+ * JSON, CBOR and Smile, each with and without gzip as applied by Tomcat response compression.
+ * <p>
+ * The size of one encoded response is printed by each fork at setup, as {@code wire bytes}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientEncodingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"identity", "gzip"})
+    private String contentEncoding;
+
+    private ObjectWriter writer;
+
+    private List<Patient> patients;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        // Dates as ISO strings, as configured by Spring Boot for the application ObjectMapper
+        writer = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build().writer();
+        patients = PatientSerializationBenchmark.patients(size);
+        System.out.printf("%nwire bytes: %d (%s, %s, %d patients)%n", encode().length, format, contentEncoding, size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (OutputStream out = contentEncoding.equals("gzip") ? new GZIPOutputStream(bytes) : bytes) {
+            writer.writeValue(out, patients);
+        }
+        return bytes.toByteArray();
+    }
+}
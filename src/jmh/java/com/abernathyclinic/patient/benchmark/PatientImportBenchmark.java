@@ -0,0 +1,56 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.dto.PatientImportReport;
+import com.abernathyclinic.patient.service.PatientImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bulk import throughput in rows per second, for several JDBC batch sizes,
+ * against an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PatientImportBenchmark.ROWS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientImportBenchmark {
+
+    static final int ROWS = 10_000;
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientImportService patientImportService;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("--patient.import.batch-size=" + batchSize);
+        patientImportService = context.getBean(PatientImportService.class);
+        StringBuilder builder = new StringBuilder("nom,prenom,dateDeNaissance,genre,adresse,telephone\n");
+        for (int i = 0; i < ROWS; i++) {
+            builder.append("TestNone").append(i).append(",Test,1966-12-31,F,1 Brookside St,100-222-3333\n");
+        }
+        csv = builder.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PatientImportReport importCsv() throws IOException {
+        return patientImportService.importCsv(new StringReader(csv));
+    }
+}
@@ -0,0 +1,63 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.dto.PatientSummary;
+import com.abernathyclinic.patient.model.Patient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of patient lists, as written by {@code GET /api/patients},
+ * and of the summary lists written by {@code GET /api/patients/summaries}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private ObjectWriter writer;
+
+    private List<Patient> patients;
+
+    private List<PatientSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        patients = patients(size);
+        summaries = patients.stream()
+                .map(p -> new PatientSummary(p.getId(), p.getNom(), p.getPrenom(), p.getDateDeNaissance()))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(summaries);
+    }
+
+    static List<Patient> patients(int size) {
+        List<Patient> patients = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            patients.add(new Patient(id, "TestNone" + id, "Test", LocalDate.of(1966, 12, 31).plusDays(id), "F",
+                    id + " Brookside St", "100-222-3333", LocalDate.now(), LocalDate.now(), "system", 0L));
+        }
+        return patients;
+    }
+}
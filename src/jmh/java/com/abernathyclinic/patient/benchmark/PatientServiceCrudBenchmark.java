@@ -0,0 +1,89 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.dto.PatientSummary;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PatientService} CRUD operations end to end through JPA, against an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientServiceCrudBenchmark {
+
+    static final int SEEDED_PATIENTS = 10_000;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientService patientService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        patientService = context.getBean(PatientService.class);
+        for (int i = 0; i < SEEDED_PATIENTS; i++) {
+            patientService.saveOrUpdatePatient(newPatient());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Patient create() {
+        return patientService.saveOrUpdatePatient(newPatient());
+    }
+
+    @Benchmark
+    public Optional<Patient> readById() {
+        return patientService.getPatientById(ThreadLocalRandom.current().nextLong(1, SEEDED_PATIENTS + 1));
+    }
+
+    @Benchmark
+    public List<Patient> readPage() {
+        return patientService.getPatientsAfter(ThreadLocalRandom.current().nextLong(0, SEEDED_PATIENTS - 100), 100);
+    }
+
+    @Benchmark
+    public List<PatientSummary> readSummaryPage() {
+        return patientService.getPatientSummariesAfter(ThreadLocalRandom.current().nextLong(0, SEEDED_PATIENTS - 100), 100);
+    }
+
+    @Benchmark
+    public int update() {
+        Patient patient = newPatient();
+        patient.setId(ThreadLocalRandom.current().nextLong(1, SEEDED_PATIENTS + 1));
+        return patientService.updatePatient(patient, null);
+    }
+
+    @Benchmark
+    public Optional<Long> patchTelephone() {
+        return patientService.patchPatient(ThreadLocalRandom.current().nextLong(1, SEEDED_PATIENTS + 1),
+                Map.of("telephone", "100-222-" + ThreadLocalRandom.current().nextInt(1000, 10000)), null);
+    }
+
+    @Benchmark
+    public int createThenDelete() {
+        return patientService.deletePatientById(patientService.saveOrUpdatePatient(newPatient()).getId());
+    }
+
+    static Patient newPatient() {
+        return new Patient(null, "TestNone", "Test", LocalDate.of(1966, 12, 31), "F",
+                "1 Brookside St", "100-222-3333", null, null, "system", 0L);
+    }
+}
@@ -0,0 +1,173 @@
+package com.abernathyclinic.patient.benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Load test reporting the throughput of {@link PatientRepository} CRUD operations against MariaDB, with the
+ * default datasource settings and with the {@code datasource-tuning} profile.
+ * <p>
+ * Each operation runs on {@code threads} threads for {@code duration-seconds}, after {@code patients} rows
+ * are seeded. Writes run in a transaction, as they do in {@code PatientService}. Without a {@code url},
+ * an embedded MariaDB is started with MariaDB4j; pass the JDBC URL of another server, such as the
+ * {@code mariadb} service of {@code compose.yaml}, to test against it.
+ * </p>
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec \
+ *     -Dbenchmark.main=com.abernathyclinic.patient.benchmark.RepositoryLoadTest \
+ *     -Dbenchmark.args="threads=8 duration-seconds=10 [url=jdbc:mariadb://localhost:3310/patientdb username=root password=root]"
+ * </pre>
+ */
+public final class RepositoryLoadTest {
+
+    private static final String[] PROFILES = {"local", "local,datasource-tuning"};
+
+    private RepositoryLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "10")));
+        int patients = Integer.parseInt(options.getOrDefault("patients", "10000"));
+
+        DB embedded = null;
+        String url = options.get("url");
+        if (url == null) {
+            DBConfigurationBuilder configuration = DBConfigurationBuilder.newBuilder();
+            configuration.setPort(0);
+            configuration.addArg("--user=root");
+            embedded = DB.newEmbeddedDB(configuration.build());
+            embedded.start();
+            url = configuration.getURL("patientdb");
+        }
+        try {
+            if (embedded != null) {
+                // Created over JDBC: DB.createDB runs the mariadb client, which needs libncurses5
+                try (Connection connection = DriverManager.getConnection(url.replace("/patientdb", "/"), "root", "");
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE DATABASE patientdb");
+                }
+            }
+            System.out.printf("%s, %d threads, %ds per operation, %d patients%n",
+                    embedded == null ? url : "Embedded MariaDB", threads, duration.toSeconds(), patients);
+            Map<String, Map<String, Double>> results = new HashMap<>();
+            for (String profiles : PROFILES) {
+                results.put(profiles, run(url, options.getOrDefault("username", "root"),
+                        options.getOrDefault("password", ""), profiles, threads, duration, patients));
+            }
+            System.out.printf("%n%-10s %14s %14s %8s%n", "operation", "default ops/s", "tuned ops/s", "ratio");
+            for (String operation : results.get(PROFILES[0]).keySet()) {
+                double before = results.get(PROFILES[0]).get(operation);
+                double after = results.get(PROFILES[1]).get(operation);
+                System.out.printf("%-10s %14.0f %14.0f %7.2fx%n", operation, before, after, after / before);
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.stop();
+            }
+        }
+    }
+
+    private static Map<String, Double> run(String url, String username, String password, String profiles,
+                                           int threads, Duration duration, int patients) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplication.startOnDatabase(url, username, password,
+                "--spring.profiles.active=" + profiles)) {
+            PatientRepository repository = context.getBean(PatientRepository.class);
+            TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+            for (int i = 0; i < patients; i += 1000) {
+                transaction.executeWithoutResult(status -> {
+                    List<Patient> batch = new ArrayList<>();
+                    for (int j = 0; j < 1000; j++) {
+                        batch.add(PatientServiceCrudBenchmark.newPatient());
+                    }
+                    repository.saveAll(batch);
+                });
+            }
+
+            Queue<Long> inserted = new ConcurrentLinkedQueue<>();
+            Map<String, Double> throughput = new LinkedHashMap<>();
+            System.out.printf("%nProfiles %s%n", profiles);
+            throughput.put("insert", measure("insert", threads, duration, () -> {
+                Patient patient = transaction.execute(status -> repository.save(PatientServiceCrudBenchmark.newPatient()));
+                inserted.add(patient.getId());
+                return true;
+            }));
+            throughput.put("findById", measure("findById", threads, duration,
+                    () -> repository.findById(randomId(patients)).isPresent()));
+            throughput.put("page", measure("page", threads, duration,
+                    () -> !repository.findByIdGreaterThanOrderByIdAsc(randomId(patients - 100), Limit.of(100)).isEmpty()));
+            throughput.put("update", measure("update", threads, duration, () -> {
+                Patient patient = PatientServiceCrudBenchmark.newPatient();
+                patient.setId(randomId(patients));
+                return transaction.execute(status -> repository.updateRow(patient, LocalDate.now(), null)) == 1;
+            }));
+            throughput.put("delete", measure("delete", threads, duration, () -> {
+                Long id = inserted.poll();
+                return id != null && transaction.execute(status -> repository.deleteRowById(id)) == 1;
+            }));
+            return throughput;
+        }
+    }
+
+    /**
+     * Runs an operation on every thread until the duration elapses, and returns its throughput.
+     * The operation returns {@code false} when it had nothing to do; such calls are not counted.
+     */
+    private static double measure(String name, int threads, Duration duration, Supplier<Boolean> operation)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            if (operation.get()) {
+                                operations.increment();
+                            }
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                });
+            }
+        }
+        double opsPerSecond = operations.sum() / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("  %-10s %10.0f ops/s  errors %d%n", name, opsPerSecond, errors.sum());
+        return opsPerSecond;
+    }
+
+    private static long randomId(int patients) {
+        return ThreadLocalRandom.current().nextLong(1, patients + 1);
+    }
+}
@@ -0,0 +1,200 @@
+package com.abernathyclinic.patient.benchmark;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.service.JwtService;
+import com.abernathyclinic.patient.service.PatientService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test comparing Tomcat request handling on platform threads and on virtual threads,
+ * in front of a database that answers slowly.
+ * <p>
+ * Every JDBC statement is delayed by {@code db-latency-ms}. Each client alternates at random between
+ * a patient already in cache and a page read from the database, so the test shows how requests that do
+ * not need the database fare once the connection pool is saturated. Both modes use the same Hikari pool.
+ * </p>
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec \
+ *     -Dbenchmark.main=com.abernathyclinic.patient.benchmark.VirtualThreadLoadTest \
+ *     -Dbenchmark.args="clients=400 duration-seconds=20 db-latency-ms=50"
+ * </pre>
+ */
+public final class VirtualThreadLoadTest {
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "400"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "20")));
+        long dbLatencyMillis = Long.parseLong(options.getOrDefault("db-latency-ms", "50"));
+        System.out.printf("%d clients, %ds per mode, %d ms per statement%n",
+                clients, duration.toSeconds(), dbLatencyMillis);
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            run(virtualThreads, clients, duration, dbLatencyMillis);
+        }
+    }
+
+    private static void run(boolean virtualThreads, int clients, Duration duration, long dbLatencyMillis)
+            throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(new SlowDatabase(dbLatencyMillis)),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=20",
+                "--spring.datasource.hikari.connection-timeout=2000",
+                "--spring.jpa.open-in-view=false")) {
+            PatientService patientService = context.getBean(PatientService.class);
+            for (int i = 0; i < 1000; i++) {
+                patientService.saveOrUpdatePatient(PatientServiceCrudBenchmark.newPatient());
+            }
+            String token = context.getBean(JwtService.class).generateToken(
+                    Map.of("roles", List.of("Organizer")), new User(1L, "organizer_user", "password1", "Organizer"));
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                    + "/api/patients";
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            HttpRequest.Builder request = HttpRequest.newBuilder()
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30));
+            client.send(request.uri(URI.create(baseUrl + "/1")).build(), HttpResponse.BodyHandlers.discarding());
+
+            Recorder cached = new Recorder();
+            Recorder database = new Recorder();
+            long deadline = System.nanoTime() + duration.toNanos();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < clients; c++) {
+                    executor.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            boolean hot = ThreadLocalRandom.current().nextBoolean();
+                            URI uri = URI.create(hot ? baseUrl + "/1"
+                                    : baseUrl + "?limit=10&after=" + ThreadLocalRandom.current().nextInt(990));
+                            long start = System.nanoTime();
+                            boolean ok;
+                            try {
+                                ok = client.send(request.uri(uri).build(), HttpResponse.BodyHandlers.discarding())
+                                        .statusCode() == 200;
+                            } catch (Exception e) {
+                                ok = false;
+                            }
+                            (hot ? cached : database).record(System.nanoTime() - start, ok);
+                        }
+                        return null;
+                    });
+                }
+            }
+            System.out.printf("%n%s threads: %.0f req/s%n", virtualThreads ? "Virtual" : "Platform",
+                    (cached.count() + database.count()) / (double) duration.toSeconds());
+            cached.print("cached patient");
+            database.print("database page");
+        }
+    }
+
+    /**
+     * Latencies of one kind of request.
+     */
+    private static final class Recorder {
+
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        long count() {
+            return latencies.size();
+        }
+
+        void print(String name) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            if (sorted.length == 0) {
+                System.out.printf("  %-15s no requests%n", name);
+                return;
+            }
+            System.out.printf("  %-15s %7d requests  p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d%n",
+                    name, sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6, errors.sum());
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+        }
+    }
+
+    /**
+     * Wraps the application {@link DataSource} so that every statement execution waits before running.
+     */
+    private record SlowDatabase(long latencyMillis) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(super.getConnection(), Connection.class);
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T delayed(T target, Class<T> type) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(latencyMillis);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return delayed(result, (Class<Object>) method.getReturnType());
+                }
+                return result;
+            });
+        }
+    }
+}
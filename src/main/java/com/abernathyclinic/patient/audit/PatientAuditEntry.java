@@ -0,0 +1,93 @@
+package com.abernathyclinic.patient.audit;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An audit entry waiting to be written to the {@code patient_audit} table.
+ *
+ * @param patientId  the ID of the changed patient.
+ * @param action     whether the patient was inserted, updated or deleted.
+ * @param modifiedBy the user who made the change.
+ * @param modifiedAt when the change was made.
+ * @param changes    the changed fields, each mapped to its {@code old} value when known and its {@code new} value.
+ */
+public record PatientAuditEntry(Long patientId, PatientChange.Type action, String modifiedBy, Instant modifiedAt,
+                                Map<String, Map<String, Object>> changes) {
+
+    /**
+     * Name recorded for changes made outside an authenticated request, such as imports run by a scheduler.
+     */
+    public static final String SYSTEM_USER = "system";
+
+    /**
+     * Creates an entry for a change made now by the current user.
+     *
+     * @param patientId the ID of the changed patient.
+     * @param action    whether the patient was inserted, updated or deleted.
+     * @param changes   the changed fields, see {@link #change(Object, Object)} and {@link #change(Object)}.
+     * @return the entry.
+     */
+    public static PatientAuditEntry of(Long patientId, PatientChange.Type action, Map<String, Map<String, Object>> changes) {
+        return new PatientAuditEntry(patientId, action, currentUsername(), Instant.now(), changes);
+    }
+
+    /**
+     * Returns the name of the authenticated user of the current thread.
+     *
+     * @return the username, or {@value #SYSTEM_USER} outside an authenticated request.
+     */
+    public static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : SYSTEM_USER;
+    }
+
+    /**
+     * Describes the fields written by a whole-patient insert or update whose previous values are not read.
+     *
+     * @param patient the patient holding the new values.
+     * @return the changes of the business fields, in declaration order.
+     */
+    public static Map<String, Map<String, Object>> newValues(Patient patient) {
+        Map<String, Map<String, Object>> changes = new LinkedHashMap<>();
+        changes.put("nom", change(patient.getNom()));
+        changes.put("prenom", change(patient.getPrenom()));
+        changes.put("dateDeNaissance", change(patient.getDateDeNaissance()));
+        changes.put("genre", change(patient.getGenre()));
+        changes.put("adresse", change(patient.getAdresse()));
+        changes.put("telephone", change(patient.getTelephone()));
+        return changes;
+    }
+
+    /**
+     * Describes a field change whose previous value is known.
+     *
+     * @param oldValue the previous value, possibly {@code null}.
+     * @param newValue the new value, possibly {@code null}.
+     * @return the change, as written to the {@code changes} column.
+     */
+    public static Map<String, Object> change(Object oldValue, Object newValue) {
+        Map<String, Object> change = new LinkedHashMap<>(4);
+        change.put("old", oldValue);
+        change.put("new", newValue);
+        return change;
+    }
+
+    /**
+     * Describes a field change written without reading the previous value, such as a single-statement update.
+     *
+     * @param newValue the new value, possibly {@code null}.
+     * @return the change, as written to the {@code changes} column.
+     */
+    public static Map<String, Object> change(Object newValue) {
+        Map<String, Object> change = new LinkedHashMap<>(2);
+        change.put("new", newValue);
+        return change;
+    }
+}
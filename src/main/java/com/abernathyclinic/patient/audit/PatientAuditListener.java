@@ -0,0 +1,117 @@
+package com.abernathyclinic.patient.audit;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hibernate listener auditing the patients inserted, updated and deleted through the persistence context.
+ * <p>
+ * Once the transaction has committed, the changed fields are computed from the entity states Hibernate
+ * already holds, with their previous values on update, and handed to the {@link PatientAuditWriter}.
+ * Technical columns such as the version are not audited.
+ * </p>
+ */
+@Component
+public class PatientAuditListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    static final Set<String> IGNORED_PROPERTIES = Set.of("lastModified", "createdAt", "whoLastModified", "version");
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final PatientAuditWriter patientAuditWriter;
+
+    /**
+     * Constructs a new {@code PatientAuditListener}.
+     *
+     * @param entityManagerFactory the factory whose Hibernate events are listened to.
+     * @param patientAuditWriter   the writer the audit entries are handed to.
+     */
+    public PatientAuditListener(EntityManagerFactory entityManagerFactory, PatientAuditWriter patientAuditWriter) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.patientAuditWriter = patientAuditWriter;
+    }
+
+    /**
+     * Registers this listener for the post-commit insert, update and delete events.
+     */
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getId(), PatientChange.Type.INSERT, event.getPersister(), null, event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getId(), PatientChange.Type.UPDATE, event.getPersister(), event.getOldState(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getId(), PatientChange.Type.DELETE, event.getPersister(), event.getDeletedState(), null);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Patient.class;
+    }
+
+    private void record(Object id, PatientChange.Type action, EntityPersister persister,
+                        Object[] oldState, Object[] newState) {
+        String[] properties = persister.getPropertyNames();
+        Map<String, Map<String, Object>> changes = new LinkedHashMap<>();
+        for (int i = 0; i < properties.length; i++) {
+            if (IGNORED_PROPERTIES.contains(properties[i]) || oldState == null && newState == null) {
+                continue;
+            }
+            if (oldState == null) {
+                changes.put(properties[i], PatientAuditEntry.change(newState[i]));
+            } else if (newState == null) {
+                changes.put(properties[i], PatientAuditEntry.change(oldState[i], null));
+            } else if (!Objects.equals(oldState[i], newState[i])) {
+                changes.put(properties[i], PatientAuditEntry.change(oldState[i], newState[i]));
+            }
+        }
+        if (action != PatientChange.Type.UPDATE || !changes.isEmpty()) {
+            patientAuditWriter.record(PatientAuditEntry.of((Long) id, action, changes));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.abernathyclinic.patient.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind writer of the patient audit trail.
+ * <p>
+ * Audit entries are queued in a bounded buffer and written to the append-only {@code patient_audit} table
+ * by a single background thread, in JDBC batches of up to {@code patient.audit.batch-size} entries, so
+ * auditing adds no database round trip to the write it audits. When the buffer is full, a caller waits up
+ * to {@code patient.audit.offer-timeout} for room and then writes its entry itself: a burst of writes
+ * slows down rather than losing audit entries. A batch that cannot be written is retried
+ * {@value #MAX_ATTEMPTS} times, then logged in full at ERROR level so that it can be replayed.
+ * </p>
+ * <p>
+ * The writer stops after the web server, once no request can produce entries any more, and writes every
+ * queued entry before the application closes its data source. Entries recorded after that are written
+ * synchronously.
+ * </p>
+ */
+@Component
+public class PatientAuditWriter implements SmartLifecycle {
+
+    static final String INSERT_SQL =
+            "INSERT INTO patient_audit (patient_id, action, modified_by, modified_at, changes) VALUES (?, ?, ?, ?, ?)";
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(PatientAuditWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<PatientAuditEntry> queue;
+
+    private final int batchSize;
+
+    private final Duration offerTimeout;
+
+    private final Duration flushInterval;
+
+    private final Counter synchronousWrites;
+
+    // Pas de synchronized : le vidage fait des I/O JDBC depuis des threads de requête, éventuellement virtuels
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    /**
+     * Constructs a new {@code PatientAuditWriter}.
+     *
+     * @param jdbcTemplate       the template used to write audit entries in batches.
+     * @param transactionManager the transaction manager committing each batch.
+     * @param objectMapper       the mapper serializing the changed fields to JSON.
+     * @param meterRegistry      the registry of the {@code patient.audit.*} metrics.
+     * @param capacity           the maximum number of entries waiting to be written.
+     * @param batchSize          the maximum number of entries written per batch.
+     * @param offerTimeout       how long a caller waits for room in a full buffer before writing its entry itself.
+     * @param flushInterval      how long the writer waits for more entries before checking whether it must stop.
+     */
+    public PatientAuditWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${patient.audit.capacity:10000}") int capacity,
+                              @Value("${patient.audit.batch-size:500}") int batchSize,
+                              @Value("${patient.audit.offer-timeout:PT1S}") Duration offerTimeout,
+                              @Value("${patient.audit.flush-interval:PT0.2S}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Les écritures synchrones ont lieu après le commit de la transaction métier, encore liée au thread :
+        // la rejoindre laisserait le batch sans commit quand l'autocommit est désactivé
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.flushInterval = flushInterval;
+        Gauge.builder("patient.audit.queue", queue, BlockingQueue::size)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+        this.synchronousWrites = Counter.builder("patient.audit.synchronous.writes")
+                .description("Audit entries written by the caller because the buffer was full or the writer stopped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an audit entry to be written in the background.
+     *
+     * @param entry the audit entry.
+     */
+    public void record(PatientAuditEntry entry) {
+        if (running) {
+            try {
+                if (queue.offer(entry, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    if (!running) {
+                        // Arrêté entre-temps : le thread d'écriture ne videra plus la file
+                        flushQueue();
+                    }
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronousWrites.increment();
+        writeOrLog(List.of(entry));
+    }
+
+    /**
+     * Queues an audit entry once the current transaction commits, or right away outside a transaction.
+     * The entry is dropped if the transaction rolls back.
+     *
+     * @param entry the audit entry.
+     */
+    public void recordAfterCommit(PatientAuditEntry entry) {
+        recordAfterCommit(List.of(entry));
+    }
+
+    /**
+     * Queues audit entries once the current transaction commits, or right away outside a transaction.
+     * The entries are dropped if the transaction rolls back.
+     *
+     * @param entries the audit entries.
+     */
+    public void recordAfterCommit(List<PatientAuditEntry> entries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entries.forEach(this::record);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entries.forEach(PatientAuditWriter.this::record);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("patient-audit-writer").start(this::drain);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQueue();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, whose lifecycle phases are close to {@link #DEFAULT_PHASE}, so that requests
+     * still being served during a graceful shutdown are audited through the buffer.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void drain() {
+        List<PatientAuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PatientAuditEntry first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeOrLog(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Personne n'interrompt ce thread : l'arrêt est détecté par running à chaque tour
+            }
+        }
+    }
+
+    private void flushQueue() {
+        flushLock.lock();
+        try {
+            List<PatientAuditEntry> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeOrLog(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeOrLog(List<PatientAuditEntry> entries) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                write(entries);
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                try {
+                    Thread.sleep(flushInterval.multipliedBy(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.error("Could not write {} patient audit entries: {}", entries.size(), entries, failure);
+    }
+
+    private void write(List<PatientAuditEntry> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (PatientAuditEntry entry : entries) {
+            rows.add(new Object[]{entry.patientId(), entry.action().name(), entry.modifiedBy(),
+                    Timestamp.from(entry.modifiedAt()), toJson(entry)});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+
+    private String toJson(PatientAuditEntry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry.changes());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the audit entry of patient " + entry.patientId(), e);
+        }
+    }
+}
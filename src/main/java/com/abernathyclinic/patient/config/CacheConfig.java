@@ -0,0 +1,46 @@
+package com.abernathyclinic.patient.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration class for the application caches.
+ * <p>
+ * The caches are backed by Caffeine and bounded by default, whatever the active profiles: the
+ * {@code spring.cache.caffeine.spec} property replaces {@link #DEFAULT_SPEC} when set. The caching advice runs
+ * outside the transactional one: a cache hit does not open a transaction, and evictions happen once the write
+ * has been committed, so an evicted patient cannot be reloaded from the database before the write is visible.
+ * </p>
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    /**
+     * Name of the cache holding patients by ID.
+     */
+    public static final String PATIENTS_CACHE = "patients";
+
+    /**
+     * Caffeine specification of the caches when {@code spring.cache.caffeine.spec} is not set.
+     */
+    public static final String DEFAULT_SPEC = "maximumSize=10000,expireAfterWrite=10m,recordStats";
+
+    /**
+     * Creates the cache manager, with a fixed set of caches so that a typo in a cache name fails instead of
+     * creating an unbounded cache.
+     *
+     * @param spec the Caffeine specification of the caches.
+     * @return the {@link CaffeineCacheManager}.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(@Value("${spring.cache.caffeine.spec:" + DEFAULT_SPEC + "}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PATIENTS_CACHE);
+        cacheManager.setCacheSpecification(spec);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,44 @@
+package com.abernathyclinic.patient.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class for the binary response encodings.
+ * <p>
+ * Besides JSON, responses can be negotiated as CBOR ({@code Accept: application/cbor}) or Smile
+ * ({@code Accept: application/x-jackson-smile}). Their converters use the {@link Jackson2ObjectMapperBuilder}
+ * customized by Spring Boot, so patients are written with the same settings as in JSON, such as ISO dates.
+ * Gzip compression of large responses is handled by the server, through the {@code server.compression.*} properties.
+ * </p>
+ */
+@Configuration
+public class EncodingConfig {
+
+    /**
+     * Provides the CBOR message converter, replacing the default one.
+     *
+     * @param builder the object mapper builder customized by Spring Boot.
+     * @return the {@link MappingJackson2CborHttpMessageConverter}.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Provides the Smile message converter, replacing the default one.
+     *
+     * @param builder the object mapper builder customized by Spring Boot.
+     * @return the {@link MappingJackson2SmileHttpMessageConverter}.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,110 @@
+package com.abernathyclinic.patient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Configuration class for the application metrics.
+ * <p>
+ * Actuator already times each endpoint ({@code http.server.requests}, by URI template), each repository
+ * method ({@code spring.data.repository.invocations}), the Hikari pool ({@code hikaricp.*}), Hibernate
+ * ({@code hibernate.*}, with {@code hibernate.generate_statistics}) and the JVM ({@code jvm.gc.*}).
+ * This class adds the time spent writing JSON, CBOR and Smile response bodies, recorded by the
+ * {@value #SERIALIZATION_TIMER} timer, so that serialization can be told apart from the rest of the request.
+ * </p>
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    /**
+     * Name of the timer recording response serialization.
+     */
+    public static final String SERIALIZATION_TIMER = "http.server.serialization";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new {@code MetricsConfig}.
+     *
+     * @param meterRegistry the registry holding the serialization timer.
+     */
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Replaces the Jackson message converters with ones that time the writing of each response body,
+     * keeping their {@link ObjectMapper}.
+     *
+     * @param converters the message converters configured so far.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(this::timed);
+    }
+
+    private HttpMessageConverter<?> timed(HttpMessageConverter<?> converter) {
+        if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+            ObjectMapper objectMapper = ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+            return new MappingJackson2HttpMessageConverter(objectMapper) {
+                @Override
+                protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                    time("json", object, () -> super.writeInternal(object, type, outputMessage));
+                }
+            };
+        }
+        if (converter.getClass() == MappingJackson2CborHttpMessageConverter.class) {
+            ObjectMapper objectMapper = ((MappingJackson2CborHttpMessageConverter) converter).getObjectMapper();
+            return new MappingJackson2CborHttpMessageConverter(objectMapper) {
+                @Override
+                protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                    time("cbor", object, () -> super.writeInternal(object, type, outputMessage));
+                }
+            };
+        }
+        if (converter.getClass() == MappingJackson2SmileHttpMessageConverter.class) {
+            ObjectMapper objectMapper = ((MappingJackson2SmileHttpMessageConverter) converter).getObjectMapper();
+            return new MappingJackson2SmileHttpMessageConverter(objectMapper) {
+                @Override
+                protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                    time("smile", object, () -> super.writeInternal(object, type, outputMessage));
+                }
+            };
+        }
+        return converter;
+    }
+
+    /**
+     * Records the time spent writing a body, tagged with its format and the type of the body.
+     */
+    private void time(String format, Object body, Write write) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            write.run();
+        } finally {
+            sample.stop(Timer.builder(SERIALIZATION_TIMER)
+                    .description("Time spent writing response bodies")
+                    .tag("format", format)
+                    .tag("type", body instanceof List<?> ? "List" : body.getClass().getSimpleName())
+                    .register(meterRegistry));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Write {
+
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,12 @@
+package com.abernathyclinic.patient.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling {@code @Scheduled} tasks, such as the polling of the patient change feed.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
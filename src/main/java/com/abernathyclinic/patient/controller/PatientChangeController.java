@@ -0,0 +1,75 @@
+package com.abernathyclinic.patient.controller;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import com.abernathyclinic.patient.service.PatientChangeBroadcaster;
+import com.abernathyclinic.patient.service.PatientChangeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller exposing the change feed of patients to downstream services.
+ * <p>
+ * Consumers keep the {@code nextToken} of the last page they read and ask only for the changes after it,
+ * either by polling or by subscribing to a Server-Sent Events stream.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/patients/changes")
+@RequiredArgsConstructor
+public class PatientChangeController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final PatientChangeService patientChangeService;
+
+    private final PatientChangeBroadcaster patientChangeBroadcaster;
+
+    /**
+     * Retrieves the patient inserts, updates and deletes recorded after a token.
+     *
+     * @param since the {@code nextToken} of the previous page, or 0 to read the feed from the beginning.
+     * @param limit the maximum number of recorded changes to read, between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return a {@link ResponseEntity} containing the {@link PatientChangeFeed} page, a 400 Bad Request response
+     *         if a parameter is out of range, or a 410 Gone response if the token is older than the retention of
+     *         the feed and the feed must be read again from the beginning.
+     */
+    @GetMapping
+    public ResponseEntity<PatientChangeFeed> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return patientChangeService.getChanges(since, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).build());
+    }
+
+    /**
+     * Streams the patient changes recorded after a token as Server-Sent Events.
+     * <p>
+     * Each event is named after the type of change, holds a change of the feed as JSON, and has the position
+     * of the change as its ID. A reconnecting client resumes from its {@code Last-Event-ID} header.
+     * </p>
+     *
+     * @param since       the token after which changes are sent, or 0 to read the feed from the beginning.
+     * @param lastEventId the ID of the last event received before a reconnection, which takes precedence over {@code since}.
+     * @return the {@link SseEmitter} streaming the changes, a 400 Bad Request response if a token is invalid, or a
+     *         410 Gone response if it is older than the retention of the feed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(defaultValue = "0") long since,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since;
+        if (from < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (patientChangeService.isExpired(from)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok(patientChangeBroadcaster.subscribe(from));
+    }
+}
@@ -1,13 +1,39 @@
 package com.abernathyclinic.patient.controller;
 
+import com.abernathyclinic.patient.dto.PatientExportReport;
+import com.abernathyclinic.patient.dto.PatientImportReport;
+import com.abernathyclinic.patient.dto.PatientSearchCriteria;
+import com.abernathyclinic.patient.dto.PatientSearchCursor;
+import com.abernathyclinic.patient.dto.PatientSummary;
 import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientAudit;
+import com.abernathyclinic.patient.service.PatientExportService;
+import com.abernathyclinic.patient.service.PatientImportService;
 import com.abernathyclinic.patient.service.PatientService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * REST controller for managing patient information.
@@ -20,8 +46,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PatientController {
 
+    /**
+     * Response header carrying the cursor of the next page, present only when more patients may follow.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final PatientService patientService;
 
+    private final PatientImportService patientImportService;
+
+    private final PatientExportService patientExportService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Creates a new patient or updates an existing one.
      *
@@ -37,38 +76,249 @@ public class PatientController {
         return ResponseEntity.ok(updatedPatient);
     }
 
+    /**
+     * Imports patients in bulk from a JSON array.
+     * <p>
+     * The body is read as a stream, so its size is not limited by memory. Invalid rows are
+     * reported individually and do not prevent the other rows from being imported.
+     * </p>
+     *
+     * @param body the JSON array of patients.
+     * @return a {@link ResponseEntity} containing the {@link PatientImportReport}, or a 400 Bad Request response
+     *         if the body is not a JSON array.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PatientImportReport> importPatientsFromJson(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(patientImportService.importJson(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Imports patients in bulk from a CSV document with a header line.
+     *
+     * @param body the CSV document, encoded in UTF-8.
+     * @return a {@link ResponseEntity} containing the {@link PatientImportReport}, or a 400 Bad Request response
+     *         if the header is missing or invalid.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<PatientImportReport> importPatientsFromCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(patientImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exports all patients to the export file of the day, in the export directory of the server.
+     * <p>
+     * The table is read through a database cursor and written as it is read, so its size is not limited by memory.
+     * If an earlier export of the day was interrupted, it is resumed after the last checkpointed patient.
+     * </p>
+     *
+     * @param format the format of the file, {@code csv} or {@code csv.gz}.
+     * @return a {@link ResponseEntity} containing the {@link PatientExportReport}, a 400 Bad Request response
+     *         if the format is unknown, or a 409 Conflict response if an export is already running.
+     * @throws IOException if the file cannot be written.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<PatientExportReport> exportPatients(@RequestParam(defaultValue = "csv.gz") String format)
+            throws IOException {
+        PatientExportService.Format exportFormat;
+        try {
+            exportFormat = PatientExportService.Format.ofExtension(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(patientExportService.export(exportFormat));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     /**
      * Updates an existing patient's information.
+     * <p>
+     * The patient is updated in place with a single statement; a patient that does not exist is not created.
+     * When an {@code If-Match} header holds the ETag returned by {@link #getPatientById(Long)}, the update
+     * only succeeds if nobody has modified the patient since.
+     * </p>
      *
      * @param id      the ID of the patient to update.
+     * @param ifMatch the ETag of the version being replaced, or absent to overwrite any version.
      * @param patient the patient object containing updated information.
-     * @return a {@link ResponseEntity} containing the updated patient, or a 400 Bad Request response if the input is invalid.
+     * @return a {@link ResponseEntity} containing the updated patient with its new version as ETag, a 400 Bad Request
+     *         response if the input is invalid, a 404 Not Found response if the patient does not exist, or a 412
+     *         Precondition Failed response if the patient has been modified since the given version.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Patient> updatePatient(@PathVariable Long id, @RequestBody Patient patient) {
+    public ResponseEntity<Patient> updatePatient(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @RequestBody Patient patient) {
         if (patient == null || !id.equals(patient.getId())) {
             return ResponseEntity.badRequest().build();
         }
-        Patient updatedPatient = patientService.saveOrUpdatePatient(patient);
-        return ResponseEntity.ok(updatedPatient);
+        if (patientService.updatePatient(patient, versionOf(ifMatch)) == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok().eTag(eTagOf(patient.getVersion())).body(patient);
     }
 
     /**
-     * Retrieves all patients.
+     * Applies field-level changes to an existing patient.
+     * <p>
+     * The body is a JSON object holding only the fields to change, as in JSON Merge Patch;
+     * only the matching columns are written. An {@code If-Match} header is checked as in {@link #updatePatient}.
+     * </p>
      *
-     * @return a {@link ResponseEntity} containing a list of patients, or a 404 Not Found response if no patients are available.
+     * @param id      the ID of the patient to update.
+     * @param ifMatch the ETag of the version being changed, or absent to change any version.
+     * @param changes the fields to change with their new value.
+     * @return a {@link ResponseEntity} with a 204 No Content status and the new version as ETag if the patient was
+     *         updated, a 400 Bad Request
+     *         response if a field is unknown, read-only or invalid, a 404 Not Found response if the patient
+     *         does not exist, or a 412 Precondition Failed response if it has been modified since the given version.
+     */
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchPatient(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestBody Map<String, Object> changes) {
+        Map<String, Object> typedChanges = new HashMap<>();
+        Optional<Long> version;
+        try {
+            changes.forEach((field, value) -> {
+                Class<?> type = PatientService.PATCHABLE_FIELDS.get(field);
+                if (type == null) {
+                    throw new IllegalArgumentException("Field cannot be patched: " + field);
+                }
+                typedChanges.put(field, value == null ? null : objectMapper.convertValue(value, type));
+            });
+            version = patientService.patchPatient(id, typedChanges, versionOf(ifMatch));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return version.map(newVersion -> ResponseEntity.noContent().eTag(eTagOf(newVersion)).<Void>build())
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    /**
+     * Retrieves one page of patients, ordered by ID.
+     * <p>
+     * Pages are seeked on the ID rather than offset, so every page costs the same whatever its position.
+     * When the page is full, the {@value #NEXT_CURSOR_HEADER} header holds the value to pass as {@code after}
+     * to fetch the next one. A page past the last patient is empty.
+     * </p>
+     *
+     * @param after the cursor returned by the previous page, or absent to start from the beginning.
+     * @param limit the maximum number of patients to return, between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return a {@link ResponseEntity} containing a list of patients, possibly none, or a 400 Bad Request response
+     *         if the limit is out of range.
      */
     @GetMapping
-    public ResponseEntity<List<Patient>> getAllPatients() {
-        List<Patient> patients = patientService.getAllPatients();
-        if (patients.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    public ResponseEntity<List<Patient>> getAllPatients(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return page(patientService.getPatientsAfter(after, limit), limit, Patient::getId);
+    }
+
+    /**
+     * Retrieves one page of patient summaries, ordered by ID.
+     * <p>
+     * Each summary holds only the ID, last name, first name and date of birth, which keeps the payload small
+     * when listing many patients. Paging works like {@link #getAllPatients(Long, int)}.
+     * </p>
+     *
+     * @param after the cursor returned by the previous page, or absent to start from the beginning.
+     * @param limit the maximum number of summaries to return, between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return a {@link ResponseEntity} containing the summaries, possibly none, or a 400 Bad Request response
+     *         if the limit is out of range.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<List<PatientSummary>> getPatientSummaries(@RequestParam(required = false) Long after,
+                                                                    @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(patients);
+        return page(patientService.getPatientSummariesAfter(after, limit), limit, PatientSummary::id);
+    }
+
+    /**
+     * Searches patients by last name, first name, date of birth and phone number.
+     * <p>
+     * Criteria are combined with AND; {@code nom} and {@code prenom} match by prefix, the others exactly.
+     * Results are ordered by name when a name criterion is given, and by ID otherwise. They are paged like
+     * {@link #getAllPatients(Long, int)}, except that the {@value #NEXT_CURSOR_HEADER} header holds an opaque token.
+     * </p>
+     *
+     * @param nom             a prefix of the last name.
+     * @param prenom          a prefix of the first name.
+     * @param dateDeNaissance the date of birth, as {@code yyyy-MM-dd}.
+     * @param telephone       the phone number.
+     * @param after           the cursor returned by the previous page, or absent to start from the beginning.
+     * @param limit           the maximum number of patients to return, between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return a {@link ResponseEntity} containing the matching patients, possibly none, or a 400 Bad Request response
+     *         if no criterion is given, the cursor is malformed or the limit is out of range.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Patient>> searchPatients(@RequestParam(required = false) String nom,
+                                                        @RequestParam(required = false) String prenom,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDeNaissance,
+                                                        @RequestParam(required = false) String telephone,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        PatientSearchCriteria criteria = new PatientSearchCriteria(nom, prenom, dateDeNaissance, telephone);
+        if (criteria.isEmpty() || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        PatientSearchCursor cursor;
+        try {
+            cursor = PatientSearchCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return page(patientService.searchPatients(criteria, cursor, limit), limit,
+                patient -> new PatientSearchCursor(patient.getNom(), patient.getPrenom(), patient.getId()).encode());
+    }
+
+    /**
+     * Streams all patients as newline-delimited JSON, ordered by ID.
+     * <p>
+     * Patients are written one per line as they are read from the database cursor,
+     * so the memory used by the request does not depend on the size of the table.
+     * </p>
+     *
+     * @param after the ID after which the stream starts, or absent to start from the beginning.
+     * @return a {@link ResponseEntity} streaming the patients in {@code application/x-ndjson}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPatients(@RequestParam(required = false) Long after) {
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody body = outputStream -> patientService.streamPatientsAfter(after, patient -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(patient));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * Retrieves a patient by their ID.
+     * <p>
+     * The response carries the patient's version as its {@code ETag}. A request whose {@code If-None-Match}
+     * header holds the current ETag gets a 304 Not Modified response without a body.
+     * </p>
      *
      * @param id the ID of the patient to retrieve.
      * @return a {@link ResponseEntity} containing the patient if found, or a 404 Not Found response if the patient does not exist.
@@ -76,10 +326,44 @@ public class PatientController {
     @GetMapping("/{id}")
     public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
         return patientService.getPatientById(id)
-                .map(ResponseEntity::ok)
+                .map(patient -> ResponseEntity.ok().eTag(eTagOf(patient.getVersion())).body(patient))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    /**
+     * Retrieves several patients by their IDs in one call, for clients rendering a list of records that each
+     * reference a patient.
+     * <p>
+     * Cached patients are served from the cache and the others are read with a single query. Unknown IDs are
+     * skipped, so the response may hold fewer patients than requested.
+     * </p>
+     *
+     * @param ids the IDs of the patients, as {@code ids=1,2,3}, between 1 and {@value #MAX_PAGE_SIZE} distinct IDs.
+     * @return a {@link ResponseEntity} containing the patients found, in the order of {@code ids},
+     *         or a 400 Bad Request response if there are no IDs or too many.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<Patient>> getPatientsByIds(@RequestParam Set<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(patientService.getPatientsByIds(ids));
+    }
+
+    /**
+     * Retrieves the audit trail of a patient: who changed which fields and when, oldest change first.
+     * The trail of a deleted patient remains available.
+     *
+     * @param id the ID of the patient.
+     * @return a {@link ResponseEntity} containing the audit entries, or a 404 Not Found response if the patient
+     *         has no audit entry.
+     */
+    @GetMapping("/{id}/audit")
+    public ResponseEntity<List<PatientAudit>> getPatientAudit(@PathVariable Long id) {
+        List<PatientAudit> audit = patientService.getPatientAudit(id);
+        return audit.isEmpty() ? ResponseEntity.status(HttpStatus.NOT_FOUND).build() : ResponseEntity.ok(audit);
+    }
+
     /**
      * Deletes a patient by their ID.
      *
@@ -89,10 +373,70 @@ public class PatientController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePatientById(@PathVariable Long id) {
-        if (patientService.getPatientById(id).isEmpty()) {
+        if (patientService.deletePatientById(id) == 0) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        patientService.deletePatientById(id);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Answers a write whose {@code If-Match} version, or whose merged entity, is no longer current.
+     *
+     * @return a {@link ResponseEntity} with a 412 Precondition Failed status.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleConcurrentModification() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    /**
+     * Formats a patient version as a strong ETag.
+     *
+     * @param version the patient version.
+     * @return the quoted ETag.
+     */
+    private static String eTagOf(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Reads the version expected by an {@code If-Match} header.
+     * <p>
+     * An ETag that was not issued by this controller can never match, so it is mapped to a version
+     * no patient has.
+     * </p>
+     *
+     * @param ifMatch the header value.
+     * @return the expected version, or {@code null} if the header is absent or {@code *}.
+     */
+    private static Long versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Wraps a keyset page in a 200 OK response, adding the {@value #NEXT_CURSOR_HEADER} header when the page is full.
+     *
+     * @param items  the page of patients or summaries.
+     * @param limit  the requested page size.
+     * @param cursor the function returning the cursor after an item, such as its ID.
+     * @return a {@link ResponseEntity} containing the page.
+     */
+    private static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, ?> cursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(cursor.apply(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
 }
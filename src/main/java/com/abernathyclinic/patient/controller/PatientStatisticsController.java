@@ -0,0 +1,31 @@
+package com.abernathyclinic.patient.controller;
+
+import com.abernathyclinic.patient.dto.PatientStatistics;
+import com.abernathyclinic.patient.service.PatientStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing aggregate patient statistics, for dashboards and risk assessment services that
+ * only need counts rather than the list of patients.
+ */
+@RestController
+@RequestMapping("/api/patients/statistics")
+@RequiredArgsConstructor
+public class PatientStatisticsController {
+
+    private final PatientStatisticsService patientStatisticsService;
+
+    /**
+     * Counts the patients by age bracket and gender, with ages computed as of today.
+     *
+     * @return a {@link ResponseEntity} containing the {@link PatientStatistics}.
+     */
+    @GetMapping
+    public ResponseEntity<PatientStatistics> getStatistics() {
+        return ResponseEntity.ok(patientStatisticsService.getStatistics());
+    }
+}
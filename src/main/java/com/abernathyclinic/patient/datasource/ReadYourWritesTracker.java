@@ -0,0 +1,64 @@
+package com.abernathyclinic.patient.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers the users who committed a write recently, so that their next reads see it.
+ * <p>
+ * Registered with the transaction manager, it records the authenticated user of every committed read-write
+ * transaction for {@code patient.datasource.replica.sticky-duration}. During that time the
+ * {@link ReplicaRoutingDataSource} sends the reads of this user to the primary, since the replica may not
+ * have applied the write yet; other users keep reading from the replica. Writes made outside an
+ * authenticated request, such as imports or the audit writer, are not tracked.
+ * </p>
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * Constructs a new {@code ReadYourWritesTracker}.
+     *
+     * @param stickyDuration how long the reads of a user go to the primary after their last write.
+     * @param maxUsers       the maximum number of users tracked at once; the oldest writes are forgotten first.
+     */
+    public ReadYourWritesTracker(Duration stickyDuration, int maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyDuration)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            recordWrite(ReplicaRoutingDataSource.currentUsername());
+        }
+    }
+
+    /**
+     * Records a committed write by a user.
+     *
+     * @param username the name of the user, or {@code null} for an unauthenticated write, which is ignored.
+     */
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Tells whether a user committed a write within the sticky duration.
+     *
+     * @param username the name of the user, or {@code null} outside an authenticated request.
+     * @return {@code true} if the reads of this user must go to the primary.
+     */
+    public boolean wroteRecently(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+}
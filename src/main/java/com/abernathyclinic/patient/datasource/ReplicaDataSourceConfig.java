@@ -0,0 +1,124 @@
+package com.abernathyclinic.patient.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Configuration class splitting database access between the primary and a read replica.
+ * <p>
+ * Only active when {@code patient.datasource.replica.url} is set; otherwise Spring Boot configures the single
+ * {@code spring.datasource.*} pool. The primary pool keeps its {@code spring.datasource.*} and
+ * {@code spring.datasource.hikari.*} settings, and the replica gets its own pool configured under
+ * {@code patient.datasource.replica.hikari.*}. JPA, Spring Data and {@code JdbcTemplate} use a
+ * {@link ReplicaRoutingDataSource} over both pools, behind a {@link LazyConnectionDataSourceProxy}.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "patient.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Creates the connection pool of the primary, from the standard Spring Boot properties.
+     *
+     * @param properties the {@code spring.datasource.*} properties.
+     * @return the pool of the primary, further configured by {@code spring.datasource.hikari.*}.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("patient-primary");
+        return dataSource;
+    }
+
+    /**
+     * Creates the connection pool of the replica. Its user and password default to those of the primary.
+     *
+     * @param url      the JDBC URL of the replica.
+     * @param username the user connecting to the replica.
+     * @param password the password of this user.
+     * @return the pool of the replica, further configured by {@code patient.datasource.replica.hikari.*}.
+     */
+    @Bean
+    @ConfigurationProperties("patient.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${patient.datasource.replica.url}") String url,
+            @Value("${patient.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${patient.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("patient-replica");
+        // Les transactions routées vers le réplica sont en lecture seule
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * Creates the monitor of the replication lag.
+     *
+     * @param replica       the pool of the replica.
+     * @param lagQuery      the query returning the replication status of the replica.
+     * @param maxLag        the largest lag at which the replica is still read.
+     * @param meterRegistry the registry of the lag gauge.
+     * @return the monitor, checking the lag on a schedule.
+     */
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${patient.datasource.replica.lag-query:SHOW SLAVE STATUS}") String lagQuery,
+            @Value("${patient.datasource.replica.max-lag:PT2S}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag, meterRegistry);
+    }
+
+    /**
+     * Creates the tracker of recent writes, registered by Spring Boot with the transaction manager.
+     *
+     * @param stickyDuration how long the reads of a user go to the primary after their last write.
+     * @param maxUsers       the maximum number of users tracked at once.
+     * @return the tracker.
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${patient.datasource.replica.sticky-duration:PT5S}") Duration stickyDuration,
+            @Value("${patient.datasource.replica.sticky-max-users:10000}") int maxUsers) {
+        return new ReadYourWritesTracker(stickyDuration, maxUsers);
+    }
+
+    /**
+     * Creates the data source used by the application, routing each transaction once it runs its first statement.
+     *
+     * @param primary               the pool of the primary.
+     * @param replica               the pool of the replica.
+     * @param lagMonitor            the monitor of the replication lag.
+     * @param readYourWritesTracker the tracker of recent writes.
+     * @param meterRegistry         the registry of the routing counters.
+     * @return the routing data source.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, lagMonitor, readYourWritesTracker, meterRegistry));
+    }
+}
@@ -0,0 +1,102 @@
+package com.abernathyclinic.patient.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how far the replica is behind the primary, and tells whether it can be read.
+ * <p>
+ * Every {@code patient.datasource.replica.lag-check-interval-ms}, the monitor runs
+ * {@code patient.datasource.replica.lag-query} ({@code SHOW SLAVE STATUS} by default) on the replica and reads
+ * its {@code Seconds_Behind_Master} column. The replica is usable while this lag is at most
+ * {@code patient.datasource.replica.max-lag}. It is not usable when replication is stopped (a {@code NULL}
+ * lag), when the replica cannot be reached, or before the first check; reads then go to the primary until a
+ * later check succeeds. A server returning no replication status, such as a standalone instance standing in
+ * for a replica in tests, is read with no lag.
+ * </p>
+ */
+public class ReplicaLagMonitor {
+
+    static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private volatile long lagSeconds = -1;
+
+    private volatile boolean replicaUsable;
+
+    /**
+     * Constructs a new {@code ReplicaLagMonitor}.
+     *
+     * @param replica       the data source of the replica.
+     * @param lagQuery      the query returning the replication status, with a {@value #LAG_COLUMN} column.
+     * @param maxLag        the largest lag at which the replica is still read.
+     * @param meterRegistry the registry of the {@code patient.datasource.replica.lag} gauge.
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this(new JdbcTemplate(replica), lagQuery, maxLag, meterRegistry);
+    }
+
+    ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge.builder("patient.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Seconds the replica is behind the primary, -1 when unknown")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Measures the lag of the replica and updates its usability.
+     */
+    @Scheduled(fixedDelayString = "${patient.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        long lag;
+        try {
+            List<Map<String, Object>> status = replicaJdbcTemplate.queryForList(lagQuery);
+            // Aucun statut de réplication : serveur autonome utilisé comme réplica
+            Object seconds = status.isEmpty() ? Long.valueOf(0) : status.get(0).get(LAG_COLUMN);
+            lag = seconds == null ? -1 : ((Number) seconds).longValue();
+        } catch (DataAccessException e) {
+            log.debug("Replica lag check failed", e);
+            lag = -1;
+        }
+        boolean usable = lag >= 0 && lag <= maxLag.toSeconds();
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica is {} s behind the primary, read-only transactions go to the replica", lag);
+            } else {
+                log.warn("Replica is {}, read-only transactions go to the primary",
+                        lag < 0 ? "unreachable or not replicating" : lag + " s behind the primary");
+            }
+        }
+        lagSeconds = lag;
+        replicaUsable = usable;
+    }
+
+    /**
+     * Tells whether the replica was within the lag tolerance at the last check.
+     *
+     * @return {@code true} if read-only transactions can go to the replica.
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+}
@@ -0,0 +1,136 @@
+package com.abernathyclinic.patient.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Data source sending read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * A connection is taken from the replica pool only inside a {@code @Transactional(readOnly = true)}
+ * transaction, including the read-only transactions of Spring Data repository methods, and only when the
+ * {@link ReplicaLagMonitor} reports the replica within its lag tolerance and the {@link ReadYourWritesTracker}
+ * has not seen a recent write by the current user. Writes, read-write transactions and statements run
+ * outside a transaction always go to the primary, as do reads wrapped in {@link #readFromPrimary(Supplier)}.
+ * </p>
+ * <p>
+ * The transaction manager opens the connection before it publishes the read-only flag of the transaction,
+ * so this data source must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which defers the choice until the first statement.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The data sources a connection can be taken from.
+     */
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    private final Counter replicaReads;
+
+    private final Counter laggingReads;
+
+    private final Counter stickyReads;
+
+    private final Counter cacheReads;
+
+    /**
+     * Constructs a new {@code ReplicaRoutingDataSource}.
+     *
+     * @param primary               the data source of the primary, receiving writes.
+     * @param replica               the data source of the replica, receiving read-only transactions.
+     * @param lagMonitor            tells whether the replica is close enough to the primary to be read.
+     * @param readYourWritesTracker tells whether the current user wrote recently.
+     * @param meterRegistry         the registry of the {@code patient.datasource.reads} counter.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.laggingReads = readCounter(meterRegistry, "primary-lagging");
+        this.stickyReads = readCounter(meterRegistry, "primary-sticky");
+        this.cacheReads = readCounter(meterRegistry, "primary-cache");
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+        if (PRIMARY_READS.get() != null) {
+            cacheReads.increment();
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            laggingReads.increment();
+            return Route.PRIMARY;
+        }
+        if (readYourWritesTracker.wroteRecently(currentUsername())) {
+            stickyReads.increment();
+            return Route.PRIMARY;
+        }
+        replicaReads.increment();
+        return Route.REPLICA;
+    }
+
+    /**
+     * Runs a read on the primary even inside a read-only transaction.
+     * <p>
+     * Used for the reads filling a cache shared by every user: a replica that has not applied a write yet
+     * would put the previous state back in the cache right after the write evicted it, for every user and
+     * until the entry expires. Without a replica, the read runs unchanged.
+     * </p>
+     *
+     * @param read the read, opening its own transaction or running in the current one.
+     * @param <T>  the type of the result.
+     * @return the result of the read.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READS.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the authenticated user of the current thread.
+     *
+     * @return the username, or {@code null} outside an authenticated request.
+     */
+    static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("patient.datasource.reads")
+                .description("Connections opened for read-only transactions, by data source and reason")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package com.abernathyclinic.patient.dto;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of the patient change feed.
+ *
+ * @param changes   the changes after the requested token, in feed order, at most one per patient.
+ * @param nextToken the token to pass as {@code since} to get the following changes; equal to the requested
+ *                  token when there is no new change.
+ */
+public record PatientChangeFeed(List<Change> changes, long nextToken) {
+
+    /**
+     * The latest change of a patient within the page.
+     *
+     * @param position  the position of the change in the feed, in the order changes were committed.
+     * @param type      whether the patient was inserted, updated or deleted.
+     * @param patientId the ID of the patient.
+     * @param changedAt when the change was recorded.
+     * @param patient   the current state of the patient, or {@code null} if it has been deleted since.
+     */
+    public record Change(long position, PatientChange.Type type, Long patientId, Instant changedAt, Patient patient) {
+    }
+}
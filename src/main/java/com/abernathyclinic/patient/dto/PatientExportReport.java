@@ -0,0 +1,15 @@
+package com.abernathyclinic.patient.dto;
+
+/**
+ * Outcome of a bulk patient export.
+ *
+ * @param file          the path of the export file.
+ * @param resumedAfter  the ID of the last patient exported by an interrupted run, or 0 if the export started over.
+ * @param exported      the number of patients written by this run.
+ * @param bytes         the size of the export file in bytes.
+ * @param elapsedMillis the wall-clock duration of the export in milliseconds.
+ * @param rowsPerSecond the export throughput, in exported rows per second.
+ */
+public record PatientExportReport(String file, long resumedAfter, long exported, long bytes,
+                                  long elapsedMillis, double rowsPerSecond) {
+}
@@ -0,0 +1,26 @@
+package com.abernathyclinic.patient.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk patient import.
+ *
+ * @param received      the number of rows read from the input.
+ * @param imported      the number of rows written to the database.
+ * @param rejected      the number of rows that failed validation or could not be written.
+ * @param errors        the first rejected rows with the reason they were rejected.
+ * @param elapsedMillis the wall-clock duration of the import in milliseconds.
+ * @param rowsPerSecond the import throughput, in imported rows per second.
+ */
+public record PatientImportReport(long received, long imported, long rejected, List<RowError> errors,
+                                  long elapsedMillis, double rowsPerSecond) {
+
+    /**
+     * A row rejected during the import.
+     *
+     * @param row     the 1-based position of the row in the input, excluding any header.
+     * @param message the reason the row was rejected.
+     */
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.abernathyclinic.patient.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of a patient search. Absent criteria are ignored, and present ones are combined with AND.
+ *
+ * @param nom             a prefix of the last name, or {@code null}.
+ * @param prenom          a prefix of the first name, or {@code null}.
+ * @param dateDeNaissance the exact date of birth, or {@code null}.
+ * @param telephone       the exact phone number, or {@code null}.
+ */
+public record PatientSearchCriteria(String nom, String prenom, LocalDate dateDeNaissance, String telephone) {
+
+    /**
+     * Tells whether no criterion is set, in which case the search would match the whole table.
+     *
+     * @return {@code true} if every criterion is absent or blank.
+     */
+    public boolean isEmpty() {
+        return isBlank(nom) && isBlank(prenom) && dateDeNaissance == null && isBlank(telephone);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,54 @@
+package com.abernathyclinic.patient.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the results of a patient search: the sort key of the last patient of a page.
+ * <p>
+ * Depending on the criteria, results are ordered by {@code (nom, prenom, id)}, {@code (prenom, id)} or {@code id}
+ * alone, so the cursor carries all three values. It is handed to clients as an opaque URL-safe token.
+ * </p>
+ *
+ * @param nom    the last name of the last patient of the page.
+ * @param prenom the first name of the last patient of the page.
+ * @param id     the ID of the last patient of the page.
+ */
+public record PatientSearchCursor(String nom, String prenom, long id) {
+
+    /**
+     * Encodes the cursor as the token returned to clients.
+     *
+     * @return the URL-safe token.
+     */
+    public String encode() {
+        // Longueur du nom en préfixe : les noms peuvent contenir n'importe quel séparateur
+        String value = id + ":" + nom.length() + ":" + nom + prenom;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token returned by {@link #encode()}.
+     *
+     * @param token the token, or {@code null}.
+     * @return the cursor, or {@code null} if {@code token} is {@code null}.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static PatientSearchCursor decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int idEnd = value.indexOf(':');
+        int lengthEnd = idEnd < 0 ? -1 : value.indexOf(':', idEnd + 1);
+        if (lengthEnd < 0) {
+            throw new IllegalArgumentException("Malformed search cursor: " + token);
+        }
+        long id = Long.parseLong(value.substring(0, idEnd));
+        int nomEnd = lengthEnd + 1 + Integer.parseInt(value.substring(idEnd + 1, lengthEnd));
+        if (nomEnd <= lengthEnd || nomEnd > value.length()) {
+            throw new IllegalArgumentException("Malformed search cursor: " + token);
+        }
+        return new PatientSearchCursor(value.substring(lengthEnd + 1, nomEnd), value.substring(nomEnd), id);
+    }
+}
@@ -0,0 +1,27 @@
+package com.abernathyclinic.patient.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of patients by age bracket and gender, on a given day.
+ *
+ * @param date     the day the ages were computed on.
+ * @param total    the number of patients.
+ * @param brackets the age brackets, youngest first, including those without any patient.
+ */
+public record PatientStatistics(LocalDate date, long total, List<AgeBracket> brackets) {
+
+    /**
+     * Patients whose age, in whole years, is within a bracket.
+     *
+     * @param label   the bounds of the bracket, such as {@code 30-39} or {@code 70+}.
+     * @param minAge  the lowest age in the bracket.
+     * @param maxAge  the highest age in the bracket, or {@code null} for the last bracket.
+     * @param total   the number of patients in the bracket.
+     * @param byGenre the number of patients in the bracket for each gender having any.
+     */
+    public record AgeBracket(String label, int minAge, Integer maxAge, long total, Map<String, Long> byGenre) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.abernathyclinic.patient.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Compact, read-only view of a patient for lists, queried directly as a projection rather than loaded as an entity.
+ *
+ * @param id              the ID of the patient.
+ * @param nom             the last name.
+ * @param prenom          the first name.
+ * @param dateDeNaissance the date of birth.
+ */
+public record PatientSummary(Long id, String nom, String prenom, LocalDate dateDeNaissance) {
+}
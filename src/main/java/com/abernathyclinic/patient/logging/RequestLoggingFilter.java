@@ -0,0 +1,94 @@
+package com.abernathyclinic.patient.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Filter marking the requests whose SQL statements and summary must be logged.
+ * <p>
+ * A request is marked when it carries the configured header with the value {@code true}, or when it is drawn
+ * at random with the configured sample rate. The mark is the {@value #MDC_KEY} MDC entry, which
+ * {@link RequestLoggingTurboFilter} reads to let the request's DEBUG events through. Every request also gets
+ * a {@value #REQUEST_ID_MDC_KEY} MDC entry, so that its log lines can be correlated.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    /**
+     * MDC entry present, with the value {@code true}, while a marked request is being processed.
+     */
+    public static final String MDC_KEY = "requestLogging";
+
+    /**
+     * MDC entry holding the ID of the request being processed.
+     */
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestLoggingFilter.class);
+
+    private final String header;
+
+    private final double sampleRate;
+
+    /**
+     * Constructs a new {@code RequestLoggingFilter}.
+     *
+     * @param header     the request header that marks a request when set to {@code true}.
+     * @param sampleRate the fraction of the other requests to mark, between 0 and 1.
+     */
+    public RequestLoggingFilter(@Value("${logging.request.header:X-Debug-Logging}") String header,
+                                @Value("${logging.request.sample-rate:0}") double sampleRate) {
+        this.header = header;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets the MDC entries for the duration of the request and, for a marked request, logs its method, URI,
+     * status and duration once it has been processed.
+     *
+     * @param request     the incoming HTTP request.
+     * @param response    the outgoing HTTP response.
+     * @param filterChain the filter chain for further processing the request.
+     * @throws ServletException if an error occurs while processing the request.
+     * @throws IOException      if an I/O error occurs while processing the request.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean marked = "true".equalsIgnoreCase(request.getHeader(header))
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        MDC.put(REQUEST_ID_MDC_KEY, requestId != null ? requestId : Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        if (marked) {
+            MDC.put(MDC_KEY, "true");
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (marked) {
+                log.debug("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        (System.nanoTime() - start) / 1_000_000);
+                MDC.remove(MDC_KEY);
+            }
+            MDC.remove(REQUEST_ID_MDC_KEY);
+        }
+    }
+}
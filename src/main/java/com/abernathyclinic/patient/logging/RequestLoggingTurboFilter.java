@@ -0,0 +1,86 @@
+package com.abernathyclinic.patient.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter enabling DEBUG logging for the requests marked by {@link RequestLoggingFilter}.
+ * <p>
+ * For a marked request, the events of the configured loggers that their level would reject are accepted,
+ * within a global budget of {@code maxEventsPerSecond}; events beyond the budget are dropped, so a burst of
+ * marked requests cannot flood the appenders. Events the logger level already enables, and all events of
+ * unmarked requests, are left to the normal level check.
+ * </p>
+ * <p>
+ * Configured in {@code logback-spring.xml} with one {@code <loggerPrefix>} element per logger name prefix.
+ * </p>
+ */
+public class RequestLoggingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+
+    private int maxEventsPerSecond = 200;
+
+    private final AtomicLong currentSecond = new AtomicLong();
+
+    private final AtomicInteger eventsInCurrentSecond = new AtomicInteger();
+
+    /**
+     * Adds a prefix of the logger names whose DEBUG events are enabled for marked requests.
+     *
+     * @param loggerPrefix the logger name prefix, such as {@code org.hibernate.SQL}.
+     */
+    public void addLoggerPrefix(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix);
+    }
+
+    /**
+     * Sets the maximum number of events accepted per second across all marked requests.
+     *
+     * @param maxEventsPerSecond the budget of events per second.
+     */
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (MDC.get(RequestLoggingFilter.MDC_KEY) == null
+                || level.isGreaterOrEqual(logger.getEffectiveLevel())
+                || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        // isDebugEnabled() and the like are called without a format: they do not consume the budget
+        if (format == null) {
+            return FilterReply.ACCEPT;
+        }
+        return tryAcquire() ? FilterReply.ACCEPT : FilterReply.DENY;
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            eventsInCurrentSecond.set(0);
+        }
+        return eventsInCurrentSecond.incrementAndGet() <= maxEventsPerSecond;
+    }
+}
@@ -2,7 +2,9 @@ package com.abernathyclinic.patient.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy;
 
@@ -15,7 +17,14 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity // Indique que cette classe est une entité JPA
-@Table(name = "patients") // Nom de la table dans la base de données
+@DynamicUpdate // Les UPDATE ne contiennent que les colonnes modifiées
+@Table(name = "patients", indexes = { // Nom de la table dans la base de données
+        // Index de recherche : préfixe sur nom/prénom, égalité sur date de naissance et téléphone
+        @Index(name = "idx_patients_nom_prenom", columnList = "nom, prenom"),
+        @Index(name = "idx_patients_prenom", columnList = "prenom"),
+        @Index(name = "idx_patients_date_de_naissance", columnList = "date_de_naissance"),
+        @Index(name = "idx_patients_telephone", columnList = "telephone")
+})
 public class Patient {
 
     @Id
@@ -41,6 +50,10 @@ public class Patient {
     private LocalDate createdAt;
     @Column()
     private String whoLastModified;
+    @Version // Verrouillage optimiste : incrémentée à chaque modification, sert d'ETag
+    @ColumnDefault("0") // Valeur des lignes existantes lors de l'ajout de la colonne
+    @Column(nullable = false)
+    private Long version; // Null si le client ne l'envoie pas : la dernière version est alors écrasée
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,34 @@
+package com.abernathyclinic.patient.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity // Ligne de l'historique d'audit des patients, en ajout seulement
+@Table(name = "patient_audit", indexes = {
+        @Index(name = "idx_patient_audit_patient_id", columnList = "patient_id, id") // Historique d'un patient
+})
+public class PatientAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false) // ID du patient modifié, conservé après sa suppression
+    private Long patientId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private PatientChange.Type action;
+    @Column(nullable = false) // Utilisateur authentifié à l'origine de la modification, ou "system"
+    private String modifiedBy;
+    @Column(nullable = false)
+    private Instant modifiedAt;
+    @Lob // Champs modifiés en JSON : {"champ": {"old": ..., "new": ...}}, "old" absent si inconnu
+    @Column(nullable = false)
+    private String changes;
+}
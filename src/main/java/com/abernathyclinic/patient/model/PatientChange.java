@@ -0,0 +1,39 @@
+package com.abernathyclinic.patient.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity // Ligne du journal des modifications de patients (flux de changements)
+@Table(name = "patient_changes", indexes = {
+        @Index(name = "idx_patient_changes_position", columnList = "position, seq"), // Lecture du flux et publication dans l'ordre
+        @Index(name = "idx_patient_changes_patient_id", columnList = "patient_id, position") // Compactage et reprise
+})
+public class PatientChange {
+
+    /**
+     * Type of a patient modification.
+     */
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Ordre d'enregistrement, pas de validation
+    private Long seq;
+    @Column(nullable = false) // ID du patient modifie, conserve apres sa suppression
+    private Long patientId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type changeType;
+    @Column(nullable = false)
+    private Instant changedAt;
+    // Position dans le flux, attribuée dans l'ordre de validation, sert de jeton de reprise ; null avant publication
+    private Long position;
+}
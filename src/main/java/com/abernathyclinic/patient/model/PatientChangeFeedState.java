@@ -0,0 +1,25 @@
+package com.abernathyclinic.patient.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity // Ligne unique d'état du flux de changements, verrouillée par la publication et le compactage
+@Table(name = "patient_change_feed_state")
+public class PatientChangeFeedState {
+
+    @Id // Toujours 1
+    private Long id;
+    @Column(nullable = false) // Dernière position attribuée à un changement
+    private Long lastPosition;
+    @Column(nullable = false) // ID du dernier patient antérieur au flux déjà enregistré comme inséré
+    private Long backfillNextId;
+    @Column(nullable = false) // ID du dernier patient existant à la création du flux (0 : rien à reprendre)
+    private Long backfillLastId;
+    @Column(nullable = false) // Position de la dernière suppression compactée : les jetons antérieurs sont expirés
+    private Long expiredBefore;
+}
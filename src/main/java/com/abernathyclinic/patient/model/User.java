@@ -1,5 +1,6 @@
 package com.abernathyclinic.patient.model;
 
+import com.abernathyclinic.patient.security.RoleAuthorities;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,7 +10,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 @Setter
 @Getter
@@ -34,7 +35,7 @@ public class User implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return RoleAuthorities.of(List.of(role)); // Role unique de l'utilisateur, prefixe ROLE_ pour hasRole
     }
 
     @Override
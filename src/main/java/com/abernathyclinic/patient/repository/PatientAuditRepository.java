@@ -0,0 +1,16 @@
+package com.abernathyclinic.patient.repository;
+
+import com.abernathyclinic.patient.model.PatientAudit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PatientAuditRepository extends JpaRepository<PatientAudit, Long> {
+
+    /**
+     * The audit history of a patient, oldest first.
+     */
+    List<PatientAudit> findByPatientIdOrderByIdAsc(Long patientId);
+}
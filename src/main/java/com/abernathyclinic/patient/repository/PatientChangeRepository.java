@@ -0,0 +1,17 @@
+package com.abernathyclinic.patient.repository;
+
+import com.abernathyclinic.patient.model.PatientChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PatientChangeRepository extends JpaRepository<PatientChange, Long> {
+
+    /**
+     * The changes published after the position {@code since}, in feed order.
+     */
+    List<PatientChange> findByPositionGreaterThanOrderByPositionAsc(Long since, Limit limit);
+}
@@ -1,12 +1,83 @@
 package com.abernathyclinic.patient.repository;
 
+import com.abernathyclinic.patient.dto.PatientSummary;
 import com.abernathyclinic.patient.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, JpaSpecificationExecutor<Patient> {
     List<Patient> findAllByNom(String nom);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page: the patients whose ID is strictly greater than {@code after}, in ID order.
+     */
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    /**
+     * Keyset page of {@link PatientSummary} projections, in ID order. Only the four summary columns are selected
+     * and no entity is instantiated or tracked by the persistence context.
+     */
+    @Query("select new com.abernathyclinic.patient.dto.PatientSummary(p.id, p.nom, p.prenom, p.dateDeNaissance) "
+            + "from Patient p where p.id > :after order by p.id")
+    List<PatientSummary> findSummariesByIdGreaterThan(@Param("after") Long after, Limit limit);
+
+    /**
+     * Forward-only cursor over the patients whose ID is strictly greater than {@code after}.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Patient p where p.id > :after order by p.id")
+    Stream<Patient> streamByIdGreaterThan(@Param("after") Long after);
+
+    /**
+     * Reads the current version of a patient without loading it.
+     */
+    @Query("select p.version from Patient p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Deletes a patient with a single {@code DELETE} statement, without loading it first.
+     *
+     * @return the number of deleted rows, 0 if no patient has this ID.
+     */
+    @Modifying
+    @Query("delete from Patient p where p.id = :id")
+    int deleteRowById(@Param("id") Long id);
+
+    /**
+     * Overwrites the editable columns of a patient with a single {@code UPDATE} statement, without loading it first,
+     * and increments its version.
+     *
+     * @param lastModified    the modification date to write.
+     * @param expectedVersion the version the patient must still have, or {@code null} to update it whatever its version.
+     * @return the number of updated rows, 0 if no patient has this ID and version.
+     */
+    @Modifying
+    @Query("update Patient p set p.nom = :#{#patient.nom}, p.prenom = :#{#patient.prenom}, "
+            + "p.dateDeNaissance = :#{#patient.dateDeNaissance}, p.genre = :#{#patient.genre}, "
+            + "p.adresse = :#{#patient.adresse}, p.telephone = :#{#patient.telephone}, "
+            + "p.whoLastModified = :#{#patient.whoLastModified}, p.lastModified = :lastModified, "
+            + "p.version = p.version + 1 "
+            + "where p.id = :#{#patient.id} and (:expectedVersion is null or p.version = :expectedVersion)")
+    int updateRow(@Param("patient") Patient patient, @Param("lastModified") LocalDate lastModified,
+                  @Param("expectedVersion") Long expectedVersion);
+}
@@ -0,0 +1,116 @@
+package com.abernathyclinic.patient.repository;
+
+import com.abernathyclinic.patient.dto.PatientSearchCriteria;
+import com.abernathyclinic.patient.dto.PatientSearchCursor;
+import com.abernathyclinic.patient.model.Patient;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * {@link Specification}s for searching patients.
+ * <p>
+ * Only the criteria that are set are turned into predicates, and name criteria are prefix matches
+ * ({@code LIKE 'abc%'}), so each query can be served by the indexes declared on {@link Patient}.
+ * </p>
+ * <p>
+ * Results are ordered along the index that serves the range scan, so that the database reads the first page in
+ * index order and stops instead of sorting every match: {@code (nom, prenom, id)} when the last name is given,
+ * {@code (prenom, id)} when only the first name is, and {@code id} for the equality criteria. InnoDB secondary
+ * indexes end with the primary key, so {@code idx_patients_nom_prenom} and {@code idx_patients_prenom} already hold
+ * these orders. The keyset condition compares the whole sort key with the {@link PatientSearchCursor}.
+ * </p>
+ */
+public final class PatientSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private PatientSpecifications() {
+    }
+
+    /**
+     * Builds the specification matching every set criterion, restricted to the results after {@code after}
+     * in the order of {@link #sortOf(PatientSearchCriteria)}.
+     *
+     * @param criteria the search criteria.
+     * @param after    the keyset cursor, or {@code null} to start from the beginning.
+     * @return the combined {@link Specification}.
+     */
+    public static Specification<Patient> matching(PatientSearchCriteria criteria, PatientSearchCursor after) {
+        Specification<Patient> specification = after == null ? Specification.where(null) : after(criteria, after);
+        if (hasText(criteria.nom())) {
+            specification = specification.and(startsWith("nom", criteria.nom()));
+        }
+        if (hasText(criteria.prenom())) {
+            specification = specification.and(startsWith("prenom", criteria.prenom()));
+        }
+        if (criteria.dateDeNaissance() != null) {
+            specification = specification.and((root, query, cb) ->
+                    cb.equal(root.get("dateDeNaissance"), criteria.dateDeNaissance()));
+        }
+        if (hasText(criteria.telephone())) {
+            specification = specification.and((root, query, cb) ->
+                    cb.equal(root.get("telephone"), criteria.telephone().trim()));
+        }
+        return specification;
+    }
+
+    /**
+     * Returns the order of the results of a search, the one of the index serving its criteria.
+     *
+     * @param criteria the search criteria.
+     * @return the {@link Sort} to apply, ending with the ID so that it is total.
+     */
+    public static Sort sortOf(PatientSearchCriteria criteria) {
+        if (hasText(criteria.nom())) {
+            return Sort.by("nom", "prenom", "id");
+        }
+        if (hasText(criteria.prenom())) {
+            return Sort.by("prenom", "id");
+        }
+        return Sort.by("id");
+    }
+
+    private static Specification<Patient> after(PatientSearchCriteria criteria, PatientSearchCursor after) {
+        if (hasText(criteria.nom())) {
+            return (root, query, cb) -> cb.and(
+                    // Redondant avec la suite, mais donne à l'optimiseur une borne d'intervalle sur l'index
+                    cb.greaterThanOrEqualTo(root.get("nom"), after.nom()),
+                    cb.or(cb.greaterThan(root.get("nom"), after.nom()),
+                            cb.and(cb.equal(root.get("nom"), after.nom()), prenomAndIdAfter(root, cb, after))));
+        }
+        if (hasText(criteria.prenom())) {
+            return (root, query, cb) -> cb.and(
+                    cb.greaterThanOrEqualTo(root.get("prenom"), after.prenom()),
+                    prenomAndIdAfter(root, cb, after));
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after.id());
+    }
+
+    private static Predicate prenomAndIdAfter(Root<Patient> root, CriteriaBuilder cb, PatientSearchCursor after) {
+        return cb.or(cb.greaterThan(root.get("prenom"), after.prenom()),
+                cb.and(cb.equal(root.get("prenom"), after.prenom()), cb.greaterThan(root.get("id"), after.id())));
+    }
+
+    private static Specification<Patient> startsWith(String attribute, String prefix) {
+        String pattern = escapeLike(prefix.trim()) + "%";
+        return (root, query, cb) -> cb.like(root.get(attribute), pattern, LIKE_ESCAPE);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,109 @@
+package com.abernathyclinic.patient.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PasswordEncoder} running the hashing and matching of a delegate encoder on a bounded pool of threads.
+ * <p>
+ * Password hashing is deliberately slow. Confining it to a few dedicated threads caps the CPU a burst of
+ * logins can take from the other requests. Once the queue is full, logins are refused at once with an
+ * {@link AuthenticationServiceException} instead of piling up. A queued login blocks its request thread for at
+ * most {@code timeout}: past it, the hashing is cancelled, or skipped if it has not started, and the login is
+ * refused the same way, so a saturated pool holds request threads for a bounded time only.
+ * </p>
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration timeout;
+
+    /**
+     * Constructs a new {@code BoundedPasswordEncoder}.
+     *
+     * @param delegate  the encoder doing the hashing.
+     * @param threads   the number of threads hashing passwords concurrently.
+     * @param queueSize the number of hashings that may wait for a thread before new ones are refused.
+     * @param timeout   the maximum time a caller waits for its hashing, queueing included, before it is refused.
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize, Duration timeout) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.delegate = delegate;
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "password-encoder-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the executor hashing passwords, for monitoring.
+     *
+     * @return the executor.
+     */
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationServiceException("Too many concurrent password checks", e);
+        }
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Tâche annulée, et retirée de la file si elle n'a pas démarré : personne n'attend plus son résultat
+            future.cancel(true);
+            executor.purge();
+            throw new AuthenticationServiceException("Password check timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while checking a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
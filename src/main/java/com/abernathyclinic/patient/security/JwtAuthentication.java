@@ -0,0 +1,84 @@
+package com.abernathyclinic.patient.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * {@link Authentication} of a request carrying a verified JSON Web Token.
+ * <p>
+ * Unlike {@code UsernamePasswordAuthenticationToken}, which copies its authorities on construction,
+ * it refers directly to the interned authorities of the {@link JwtPrincipal}, so authenticating a
+ * request allocates nothing but this object.
+ * </p>
+ */
+public final class JwtAuthentication implements Authentication {
+
+    private final JwtPrincipal principal;
+
+    private boolean authenticated = true;
+
+    /**
+     * Constructs a new {@code JwtAuthentication}.
+     *
+     * @param principal the verified token.
+     */
+    public JwtAuthentication(JwtPrincipal principal) {
+        this.principal = principal;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.authorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    /**
+     * Returns the username carried by the token.
+     *
+     * @return the username.
+     */
+    @Override
+    public Object getPrincipal() {
+        return principal.username();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    /**
+     * Marks the authentication as no longer trusted.
+     *
+     * @param isAuthenticated must be {@code false}: only a verified token, on construction, authenticates a request.
+     * @throws IllegalArgumentException if {@code isAuthenticated} is {@code true}.
+     */
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("A JwtAuthentication is only authenticated by verifying its token");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return principal.username();
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication[name=" + getName() + ", authorities=" + getAuthorities() + "]";
+    }
+}
@@ -1,39 +1,61 @@
 package com.abernathyclinic.patient.security;
 
 import com.abernathyclinic.patient.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filter for validating JSON Web Tokens (JWT) in incoming HTTP requests.
  * <p>
  * This filter ensures that each request contains a valid JWT in the `Authorization` header.
- * If the token is valid, the user's authentication is added to the {@link SecurityContextHolder}.
+ * If the token is valid, the user's authentication is added to the {@link SecurityContextHolder}, with the
+ * {@code ROLE_} authorities of the token's roles interned by {@link RoleAuthorities}.
+ * The time spent verifying tokens is recorded by the {@value #VERIFICATION_TIMER} timer, tagged with
+ * the {@code outcome} of the verification.
  * </p>
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * Name of the timer recording JWT verifications.
+     */
+    public static final String VERIFICATION_TIMER = "jwt.verification";
+
     private final JwtService jwtService;
 
+    private final Timer validTokens;
+
+    private final Timer invalidTokens;
+
     /**
      * Constructs a new {@code JwtAuthenticationFilter} with the specified {@link JwtService}.
      *
-     * @param jwtService the service responsible for validating and extracting information from JWTs.
+     * @param jwtService    the service responsible for validating and extracting information from JWTs.
+     * @param meterRegistry the registry holding the verification timers.
      */
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
+        this.validTokens = verificationTimer(meterRegistry, "valid");
+        this.invalidTokens = verificationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(VERIFICATION_TIMER)
+                .description("Time spent verifying the JWT of a request")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     /**
@@ -59,20 +81,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String jwt = authHeader.substring(7);
-        if (jwtService.isTokenValid(jwt)) {
-            String username = jwtService.extractUsername(jwt);
-            List<String> roles = jwtService.extractClaim(jwt, claims -> claims.get("roles", List.class));
-
-            // Convert roles to GrantedAuthority
-            List<SimpleGrantedAuthority> authorities = roles.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .toList();
-
-            // Add authentication to the security context
-            UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(username, null, authorities);
-
-            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        long start = System.nanoTime();
+        Optional<JwtPrincipal> principal = jwtService.verify(jwt);
+        (principal.isPresent() ? validTokens : invalidTokens).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (principal.isPresent()) {
+            // Add authentication to the security context, with the precomputed authorities of the token
+            SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(principal.get()));
         }
         else {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -0,0 +1,39 @@
+package com.abernathyclinic.patient.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable view of a verified JSON Web Token.
+ * <p>
+ * Instances are produced once per distinct token by the {@code JwtService} and may be shared
+ * between concurrent requests carrying the same token.
+ * </p>
+ *
+ * @param username    the subject of the token.
+ * @param roles       the roles granted by the token, never {@code null}.
+ * @param expiresAt   the instant after which the token is no longer valid.
+ * @param authorities the authorities granted by the roles, or {@code null} to resolve their interned authorities,
+ *                    see {@link RoleAuthorities}, once when the principal is built.
+ */
+public record JwtPrincipal(String username, List<String> roles, Instant expiresAt,
+                           List<GrantedAuthority> authorities) {
+
+    public JwtPrincipal {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+        authorities = authorities == null ? RoleAuthorities.of(roles) : authorities;
+    }
+
+    /**
+     * Constructs a new {@code JwtPrincipal}, resolving the authorities of its roles.
+     *
+     * @param username  the subject of the token.
+     * @param roles     the roles granted by the token, or {@code null} if it grants none.
+     * @param expiresAt the instant after which the token is no longer valid.
+     */
+    public JwtPrincipal(String username, List<String> roles, Instant expiresAt) {
+        this(username, roles, expiresAt, null);
+    }
+}
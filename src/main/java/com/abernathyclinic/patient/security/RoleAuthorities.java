@@ -0,0 +1,53 @@
+package com.abernathyclinic.patient.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned authorities of role combinations.
+ * <p>
+ * Each distinct list of roles is converted once into an immutable list of {@code ROLE_}-prefixed authorities,
+ * as expected by {@code hasRole}, and the same list is returned for every later lookup. Role combinations come
+ * from users and verified tokens only, so the number of entries stays small; past {@value #MAX_ENTRIES}
+ * entries, authorities are still computed but no longer interned.
+ * </p>
+ */
+public final class RoleAuthorities {
+
+    static final String ROLE_PREFIX = "ROLE_";
+
+    static final int MAX_ENTRIES = 1024;
+
+    private static final Map<List<String>, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Returns the authorities granted by a list of roles.
+     *
+     * @param roles the roles, with or without the {@code ROLE_} prefix.
+     * @return the shared, immutable list of authorities.
+     */
+    public static List<GrantedAuthority> of(List<String> roles) {
+        List<GrantedAuthority> authorities = AUTHORITIES.get(roles);
+        if (authorities != null) {
+            return authorities;
+        }
+        if (AUTHORITIES.size() >= MAX_ENTRIES) {
+            return toAuthorities(roles);
+        }
+        return AUTHORITIES.computeIfAbsent(List.copyOf(roles), RoleAuthorities::toAuthorities);
+    }
+
+    private static List<GrantedAuthority> toAuthorities(List<String> roles) {
+        return roles.stream()
+                .map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
@@ -1,10 +1,16 @@
 package com.abernathyclinic.patient.security;
 
+import com.abernathyclinic.patient.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -14,12 +20,21 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Configuration class for Spring Security.
  * <p>
  * This class configures the security settings of the application, including
  * JWT authentication, stateless session management, and password encoding.
  * </p>
+ * <p>
+ * Password logins are checked against the users of {@link UserService}, which caches them. Hashing runs
+ * on a small dedicated pool so that a burst of logins cannot starve the threads serving patient requests,
+ * and a password hashed with a lower cost than {@code security.password.bcrypt-strength} is rehashed with
+ * the configured cost on the next successful login.
+ * </p>
  */
 @Configuration
 @EnableMethodSecurity(prePostEnabled = true)
@@ -39,8 +54,11 @@ public class SecurityConfig {
     /**
      * Configures the security filter chain for the application.
      * <p>
-     * This method disables CSRF protection, enforces authentication for all requests,
-     * configures stateless session management, and integrates the {@link JwtAuthenticationFilter}.
+     * This method disables CSRF protection, enforces authentication for all requests, requires the
+     * {@code Organizer} role to read patients, configures stateless session management, and integrates
+     * the {@link JwtAuthenticationFilter}.
+     * Async dispatches, such as the completion of a streamed response, were already authorized
+     * on the initial request and are let through.
      * </p>
      *
      * @param http the {@link HttpSecurity} object used to configure security settings.
@@ -51,7 +69,8 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.GET, "/patients").hasRole("Organizer")
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/patients/**").hasRole("Organizer")
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -61,28 +80,46 @@ public class SecurityConfig {
     /**
      * Provides a {@link PasswordEncoder} bean for encoding passwords.
      * <p>
-     * This method uses the {@link BCryptPasswordEncoder} for secure password hashing.
+     * This method uses the {@link BCryptPasswordEncoder} for secure password hashing, run on a
+     * {@link BoundedPasswordEncoder} pool whose metrics are published as {@code executor.*} with the
+     * {@code name=password-encoder} tag.
      * </p>
      *
-     * @return a {@link BCryptPasswordEncoder} instance.
+     * @param strength      the bcrypt cost, as the log2 of the number of rounds.
+     * @param threads       the number of passwords hashed concurrently.
+     * @param queueSize     the number of hashings waiting for a thread before logins are refused.
+     * @param timeout       the maximum time a login waits for its hashing before it is refused.
+     * @param meterRegistry the registry the pool metrics are published to.
+     * @return a {@link BoundedPasswordEncoder} instance.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength,
+                                                  @Value("${security.password.threads:2}") int threads,
+                                                  @Value("${security.password.queue-size:50}") int queueSize,
+                                                  @Value("${security.password.timeout:PT1S}") Duration timeout,
+                                                  MeterRegistry meterRegistry) {
+        BoundedPasswordEncoder passwordEncoder =
+                new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueSize, timeout);
+        new ExecutorServiceMetrics(passwordEncoder.getExecutor(), "password-encoder", List.of()).bindTo(meterRegistry);
+        return passwordEncoder;
     }
 
     /**
      * Provides an {@link AuthenticationManager} bean for managing authentication.
      * <p>
-     * This method retrieves the {@link AuthenticationManager} from the {@link AuthenticationConfiguration}.
+     * This method builds a {@link ProviderManager} around a {@link DaoAuthenticationProvider} checking
+     * password logins against {@link UserService}, which also stores the rehashed passwords.
      * </p>
      *
-     * @param authenticationConfiguration the configuration object for authentication.
+     * @param userService     the service loading users and storing rehashed passwords.
+     * @param passwordEncoder the encoder checking passwords.
      * @return the configured {@link AuthenticationManager}.
-     * @throws Exception if an error occurs while retrieving the authentication manager.
      */
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
-        return authenticationConfiguration.getAuthenticationManager();
+    public AuthenticationManager authenticationManager(UserService userService, PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(passwordEncoder);
+        authenticationProvider.setUserDetailsService(userService);
+        authenticationProvider.setUserDetailsPasswordService(userService);
+        return new ProviderManager(authenticationProvider);
     }
 }
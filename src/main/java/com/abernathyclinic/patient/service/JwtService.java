@@ -1,18 +1,38 @@
 package com.abernathyclinic.patient.service;
 
+import com.abernathyclinic.patient.security.JwtPrincipal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -21,16 +41,79 @@ import java.util.function.Function;
  * This service provides functionality for generating, validating, and extracting information
  * from JWTs. It uses a configurable secret key and expiration time.
  * </p>
+ * <p>
+ * The signing key and parser are built once, and verified tokens are kept in a bounded cache
+ * keyed by their SHA-256 hash until they expire, so a token reused across requests is only
+ * HMAC-verified once.
+ * </p>
+ * <p>
+ * Before its signature is verified, a token must pass a cheap check of its structure, {@code alg} header and
+ * {@code exp} claim. Rejected tokens are remembered in a second bounded cache, so a burst of bad tokens
+ * is answered without parsing or verifying them again.
+ * </p>
  */
 @Service
 public class JwtService {
 
+    /**
+     * The only signature algorithm accepted, the one used by {@link #generateToken(Map, UserDetails)}.
+     */
+    static final String ALGORITHM = SignatureAlgorithm.HS256.getValue();
+
+    private static final long ALLOWED_CLOCK_SKEW_SECONDS = 60;
+
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+
     @Value("${security.jwt.secret-key}")
     private String secretKey;
 
     @Value("${security.jwt.expiration-time}")
     private long jwtExpiration;
 
+    @Value("${security.jwt.cache.max-size:10000}")
+    private long cacheMaxSize = 10_000;
+
+    @Value("${security.jwt.rejected-cache.max-size:10000}")
+    private long rejectedCacheMaxSize = 10_000;
+
+    @Value("${security.jwt.rejected-cache.ttl:PT5M}")
+    private Duration rejectedCacheTtl = Duration.ofMinutes(5);
+
+    @Value("${security.jwt.max-length:4096}")
+    private int maxTokenLength = 4096;
+
+    private Key signInKey;
+
+    private JwtParser jwtParser;
+
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    private Cache<String, Boolean> rejectedTokens;
+
+    /**
+     * Precomputes the signing key and parser, and resets the caches of verified and rejected tokens.
+     * <p>
+     * Called once the properties are injected, and again whenever the secret key changes.
+     * </p>
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .setAllowedClockSkewSeconds(ALLOWED_CLOCK_SKEW_SECONDS)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
+        rejectedTokens = Caffeine.newBuilder()
+                .maximumSize(rejectedCacheMaxSize)
+                .expireAfterWrite(rejectedCacheTtl)
+                .build();
+    }
+
     /**
      * Sets the secret key used for signing and verifying JWTs.
      *
@@ -38,6 +121,7 @@ public class JwtService {
      */
     public void setSecretKey(String secretKey) {
         this.secretKey = secretKey;
+        init();
     }
 
     /**
@@ -49,6 +133,89 @@ public class JwtService {
         this.jwtExpiration = jwtExpiration;
     }
 
+    /**
+     * Verifies a JWT once and returns the identity it carries.
+     * <p>
+     * The signature and expiration date are checked on the first call for a given token;
+     * later calls with the same token are answered from the cache until the token expires.
+     * Tokens that are too long, malformed, expired or not signed with {@value #ALGORITHM} per their header
+     * and payload are rejected without verifying their signature. A rejected token is rejected again
+     * from the cache of rejected tokens.
+     * </p>
+     *
+     * @param token the JWT to verify.
+     * @return an {@link Optional} containing the {@link JwtPrincipal} if the token is valid, or empty otherwise.
+     */
+    public Optional<JwtPrincipal> verify(String token) {
+        if (token == null || token.isEmpty() || token.length() > maxTokenLength) {
+            return Optional.empty();
+        }
+        String tokenHash = hash(token);
+        JwtPrincipal principal = verifiedTokens.getIfPresent(tokenHash);
+        if (principal != null) {
+            return Optional.of(principal);
+        }
+        if (rejectedTokens.getIfPresent(tokenHash) != null) {
+            return Optional.empty();
+        }
+        if (!isPlausible(token)) {
+            rejectedTokens.put(tokenHash, Boolean.TRUE);
+            return Optional.empty();
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            if (expiration == null || !expiration.after(new Date())) {
+                rejectedTokens.put(tokenHash, Boolean.TRUE);
+                return Optional.empty();
+            }
+            List<?> roles = claims.get("roles", List.class);
+            principal = new JwtPrincipal(
+                    claims.getSubject(),
+                    roles == null ? List.of() : roles.stream().map(String::valueOf).toList(),
+                    expiration.toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            rejectedTokens.put(tokenHash, Boolean.TRUE);
+            return Optional.empty();
+        }
+        verifiedTokens.put(tokenHash, principal);
+        return Optional.of(principal);
+    }
+
+    /**
+     * Checks, without verifying its signature, that a JWT could be valid.
+     * <p>
+     * The token must have three Base64URL parts, a {@value #ALGORITHM} {@code alg} header,
+     * and a numeric {@code exp} claim that is not past, allowing for the same clock skew as the parser.
+     * </p>
+     *
+     * @param token the JWT to check.
+     * @return {@code true} if the token is worth verifying, {@code false} if it is certainly invalid.
+     */
+    boolean isPlausible(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd <= headerEnd + 1 || payloadEnd == token.length() - 1
+                || token.indexOf('.', payloadEnd + 1) >= 0) {
+            return false;
+        }
+        try {
+            JsonNode header = decodeJson(token.substring(0, headerEnd));
+            if (!ALGORITHM.equals(header.path("alg").asText(null))) {
+                return false;
+            }
+            JsonNode expiration = decodeJson(token.substring(headerEnd + 1, payloadEnd)).path("exp");
+            return expiration.isNumber()
+                    && expiration.asLong() + ALLOWED_CLOCK_SKEW_SECONDS > Instant.now().getEpochSecond();
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static JsonNode decodeJson(String part) throws IOException {
+        return JSON_READER.readTree(Base64.getUrlDecoder().decode(part));
+    }
+
     /**
      * Extracts the username (subject) from a given JWT.
      *
@@ -109,36 +276,7 @@ public class JwtService {
      * @return {@code true} if the token is valid, {@code false} otherwise.
      */
     public boolean isTokenValid(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.getExpiration().after(new Date());
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    /**
-     * Checks if a JWT is expired.
-     *
-     * @param token the JWT to check.
-     * @return {@code true} if the token is expired, {@code false} otherwise.
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    /**
-     * Extracts the expiration date from a JWT.
-     *
-     * @param token the JWT to parse.
-     * @return the expiration date of the token.
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).isPresent();
     }
 
     /**
@@ -152,23 +290,24 @@ public class JwtService {
         if (token == null || token.isEmpty()) {
             throw new IllegalArgumentException("Decode argument cannot be null or empty");
         }
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .setAllowedClockSkewSeconds(60)
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     /**
-     * Retrieves the signing key used for JWT operations.
+     * Hashes a JWT so that it can be used as a cache key without retaining the token itself.
      *
-     * @return a {@link Key} used for signing and verifying JWTs.
+     * @param token the JWT to hash.
+     * @return the hex-encoded SHA-256 digest of the token.
      */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     /**
@@ -190,7 +329,28 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    /**
+     * Keeps a verified token in the cache exactly as long as the token itself is valid.
+     */
+    private static final class UntilTokenExpires implements Expiry<String, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service pushing the patient change feed to Server-Sent Events subscribers.
+ * <p>
+ * A single scheduled task polls the feed once per distinct token among the subscribers. Subscribers that are
+ * caught up share the same token and a single read, while a new or lagging subscriber reads its own pages,
+ * {@code batchSize} changes per poll, until it reaches their token and joins their read; it never holds back
+ * the others. Each event carries the position of the change as its ID, so a reconnecting client resumes with the
+ * standard {@code Last-Event-ID} header. Subscribers whose token expires while they lag are disconnected, and
+ * reconnecting with it is refused.
+ * </p>
+ */
+@Service
+public class PatientChangeBroadcaster {
+
+    private final PatientChangeService patientChangeService;
+
+    private final int batchSize;
+
+    private final long timeoutMillis;
+
+    private final Map<SseEmitter, Long> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code PatientChangeBroadcaster}.
+     *
+     * @param patientChangeService the service reading the change feed.
+     * @param batchSize            the maximum number of recorded changes read per poll.
+     * @param timeoutMillis        the time after which a subscription is closed and the client must reconnect.
+     */
+    public PatientChangeBroadcaster(PatientChangeService patientChangeService,
+                                    @Value("${patient.changes.batch-size:1000}") int batchSize,
+                                    @Value("${patient.changes.sse-timeout-ms:1800000}") long timeoutMillis) {
+        this.patientChangeService = patientChangeService;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Subscribes to the changes recorded after a token.
+     *
+     * @param since the token after which changes are sent.
+     * @return the {@link SseEmitter} the changes are sent to.
+     */
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.put(emitter, since);
+        return emitter;
+    }
+
+    /**
+     * Reads the next changes once for each group of subscribers sharing a token, and sends them to the group.
+     */
+    @Scheduled(fixedDelayString = "${patient.changes.poll-interval-ms:1000}")
+    public void poll() {
+        Map<Long, List<SseEmitter>> byToken = new HashMap<>();
+        subscribers.forEach((emitter, since) -> byToken.computeIfAbsent(since, token -> new ArrayList<>()).add(emitter));
+        byToken.forEach((since, emitters) -> {
+            Optional<PatientChangeFeed> feed = patientChangeService.getChanges(since, batchSize);
+            if (feed.isEmpty()) {
+                // Jeton expiré par le compactage : le client doit relire le flux depuis le début
+                emitters.forEach(emitter -> {
+                    subscribers.remove(emitter);
+                    emitter.complete();
+                });
+            } else if (!feed.get().changes().isEmpty()) {
+                emitters.forEach(emitter -> send(emitter, since, feed.get()));
+            }
+        });
+    }
+
+    private void send(SseEmitter emitter, long since, PatientChangeFeed feed) {
+        try {
+            for (PatientChangeFeed.Change change : feed.changes()) {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.position()))
+                        .name(change.type().name())
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+            subscribers.replace(emitter, since, feed.nextToken());
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+}
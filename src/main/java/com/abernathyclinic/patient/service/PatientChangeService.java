@@ -0,0 +1,353 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+import com.abernathyclinic.patient.repository.PatientChangeRepository;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the change feed of patients.
+ * <p>
+ * Every write to a patient records a {@link PatientChange} row in the same transaction, including a tombstone
+ * when the patient is deleted. Consumers read only the changes made since their last token instead of polling
+ * the whole table.
+ * </p>
+ * <p>
+ * The sequence of a change is assigned when it is inserted, not when its transaction commits: while a transaction
+ * holding sequence 100 is still running, sequence 101 may already be visible, so the sequence cannot be the token.
+ * Instead, {@link #publish()} gives committed changes a position in the feed, in the order it sees them commit,
+ * under a lock on the single row of {@code patient_change_feed_state}, and consumers page by position. A change
+ * committed late is published after the changes committed before it, however long its transaction ran; a rolled
+ * back change is never published.
+ * </p>
+ * <p>
+ * Patients created before the feed are recorded as inserted by the same job, a window of IDs per run, and the feed
+ * is compacted by {@link #compact()}: changes older than {@code patient.changes.retention} are deleted when a later
+ * change of the same patient exists, and so are tombstones. Reading from the beginning therefore still returns
+ * every patient, but a consumer whose token is older than a compacted tombstone may have missed a deletion: its
+ * token has expired and it must read the feed again from the beginning. Consumers must resume within the retention.
+ * </p>
+ */
+@Service
+@Transactional
+public class PatientChangeService {
+
+    private static final String INSERT_IMPORTED_SQL = "INSERT INTO patient_changes (patient_id, change_type, changed_at) "
+            + "SELECT id, 'INSERT', ? FROM patients WHERE id IN (%s) ORDER BY id";
+
+    private static final String BACKFILL_SQL = "SELECT p.id FROM patients p WHERE p.id > ? AND p.id <= ? "
+            + "AND NOT EXISTS (SELECT 1 FROM patient_changes c WHERE c.patient_id = p.id) ORDER BY p.id";
+
+    private static final String LAST_PATIENT_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM patients";
+
+    private static final String CREATE_FEED_STATE_SQL = "INSERT INTO patient_change_feed_state "
+            + "(id, last_position, backfill_next_id, backfill_last_id, expired_before) VALUES (1, 0, 0, ?, 0)";
+
+    private static final String LOCK_FEED_STATE_SQL = "SELECT last_position, backfill_next_id, backfill_last_id "
+            + "FROM patient_change_feed_state WHERE id = 1 FOR UPDATE";
+
+    private static final String UNPUBLISHED_SQL =
+            "SELECT seq FROM patient_changes WHERE position IS NULL ORDER BY seq LIMIT ?";
+
+    private static final String PUBLISH_SQL =
+            "UPDATE patient_changes SET position = ? WHERE seq = ? AND position IS NULL";
+
+    private static final String UPDATE_FEED_STATE_SQL =
+            "UPDATE patient_change_feed_state SET last_position = ?, backfill_next_id = ? WHERE id = 1";
+
+    private static final String EXPIRED_BEFORE_SQL = "SELECT expired_before FROM patient_change_feed_state WHERE id = 1";
+
+    private static final String COMPACTION_SQL = "SELECT c.seq, c.position, c.change_type, c.changed_at, "
+            + "EXISTS (SELECT 1 FROM patient_changes l WHERE l.patient_id = c.patient_id AND l.position > c.position) "
+            + "FROM patient_changes c WHERE c.position > ? ORDER BY c.position LIMIT ?";
+
+    private static final String DELETE_CHANGE_SQL = "DELETE FROM patient_changes WHERE seq = ?";
+
+    private static final String EXPIRE_TOKENS_SQL =
+            "UPDATE patient_change_feed_state SET expired_before = ? WHERE id = 1 AND expired_before < ?";
+
+    private final PatientChangeRepository patientChangeRepository;
+
+    private final PatientRepository patientRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int publishBatchSize;
+
+    private final Duration retention;
+
+    /**
+     * Constructs a new {@code PatientChangeService}.
+     *
+     * @param patientChangeRepository the repository of recorded changes.
+     * @param patientRepository       the repository used to read the current state of changed patients.
+     * @param jdbcTemplate            the template used to record the changes of bulk imports and to publish changes.
+     * @param transactionManager      the transaction manager of each publication and compaction batch.
+     * @param publishBatchSize        the maximum number of changes published, patient IDs backfilled or changes
+     *                                examined for compaction per transaction.
+     * @param retention               how long a change is kept once superseded, and a tombstone at all.
+     */
+    public PatientChangeService(PatientChangeRepository patientChangeRepository, PatientRepository patientRepository,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${patient.changes.publish-batch-size:10000}") int publishBatchSize,
+                                @Value("${patient.changes.retention:P7D}") Duration retention) {
+        this.patientChangeRepository = patientChangeRepository;
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishBatchSize = publishBatchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Records a change of one patient, in the current transaction.
+     *
+     * @param patientId the ID of the changed patient.
+     * @param type      the type of change.
+     */
+    public void record(Long patientId, PatientChange.Type type) {
+        patientChangeRepository.save(new PatientChange(null, patientId, type, Instant.now(), null));
+    }
+
+    /**
+     * Records the insertion of imported patients with a single {@code INSERT ... SELECT}, in the current transaction.
+     * <p>
+     * The IDs of a bulk insert are computed from the first generated one, the database giving a consecutive range
+     * to a multi-row statement: a missing patient means the range was not the one of the insert. Patients are
+     * selected by ID rather than by range, which would also lock the gap after the range and make concurrent
+     * imports deadlock.
+     * </p>
+     *
+     * @param patientIds the IDs of the patients inserted in the current transaction.
+     * @throws JdbcUpdateAffectedIncorrectNumberOfRowsException if one of the patients does not exist.
+     */
+    public void recordInserts(List<Long> patientIds) {
+        String sql = INSERT_IMPORTED_SQL.formatted(String.join(", ", Collections.nCopies(patientIds.size(), "?")));
+        int recorded = insertChanges(sql, patientIds);
+        if (recorded != patientIds.size()) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sql, patientIds.size(), recorded);
+        }
+    }
+
+    private int insertChanges(String sql, List<Long> patientIds) {
+        List<Object> args = new ArrayList<>(patientIds.size() + 1);
+        args.add(Timestamp.from(Instant.now()));
+        args.addAll(patientIds);
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    /**
+     * Retrieves the changes published after a token.
+     * <p>
+     * Only the latest change of each patient within the page is returned, along with the patient's current state.
+     * </p>
+     *
+     * @param since the token returned by the previous page, or 0 to read the feed from the beginning.
+     * @param limit the maximum number of published changes to read.
+     * @return an {@link Optional} containing the {@link PatientChangeFeed} page, or empty if the token has expired.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PatientChangeFeed> getChanges(long since, int limit) {
+        if (isExpired(since)) {
+            return Optional.empty();
+        }
+        List<PatientChange> changes =
+                patientChangeRepository.findByPositionGreaterThanOrderByPositionAsc(since, Limit.of(limit));
+        if (changes.isEmpty()) {
+            return Optional.of(new PatientChangeFeed(List.of(), since));
+        }
+        Map<Long, PatientChange> latest = new LinkedHashMap<>();
+        for (PatientChange change : changes) {
+            latest.remove(change.getPatientId());
+            latest.put(change.getPatientId(), change);
+        }
+        List<Long> liveIds = latest.values().stream()
+                .filter(change -> change.getChangeType() != PatientChange.Type.DELETE)
+                .map(PatientChange::getPatientId)
+                .toList();
+        Map<Long, Patient> patients = patientRepository.findAllById(liveIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        List<PatientChangeFeed.Change> page = new ArrayList<>(latest.size());
+        for (PatientChange change : latest.values()) {
+            page.add(new PatientChangeFeed.Change(change.getPosition(), change.getChangeType(), change.getPatientId(),
+                    change.getChangedAt(), patients.get(change.getPatientId())));
+        }
+        return Optional.of(new PatientChangeFeed(page, changes.get(changes.size() - 1).getPosition()));
+    }
+
+    /**
+     * Tells whether a token is older than a compacted tombstone, in which case changes after it may be missing.
+     *
+     * @param since the token to check; 0, the beginning of the feed, never expires.
+     * @return {@code true} if the consumer must read the feed again from the beginning.
+     */
+    @Transactional(readOnly = true)
+    public boolean isExpired(long since) {
+        if (since == 0) {
+            return false;
+        }
+        List<Long> expiredBefore = jdbcTemplate.queryForList(EXPIRED_BEFORE_SQL, Long.class);
+        return !expiredBefore.isEmpty() && since < expiredBefore.get(0);
+    }
+
+    /**
+     * Publishes the committed changes that have no position yet, {@code publishBatchSize} at a time, each batch
+     * in its own transaction, after recording the next window of patients created before the feed, if any.
+     * <p>
+     * A batch is read once the lock on the feed state is held, so the batches of several instances are numbered
+     * one after the other, and changes whose transaction is still running are not visible to it: they are left to
+     * a later run. Only the changes read are updated, by sequence, so publishing never waits for a running
+     * transaction. The state is created on the first run, with the last patient ID to backfill.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${patient.changes.publish-interval-ms:200}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void publish() {
+        Boolean more;
+        do {
+            try {
+                more = transactionTemplate.execute(status -> publishBatch());
+            } catch (DuplicateKeyException e) {
+                // Une autre instance a créé l'état du flux au même moment : elle publie ce passage
+                return;
+            }
+        } while (Boolean.TRUE.equals(more));
+    }
+
+    private boolean publishBatch() {
+        List<FeedState> states = jdbcTemplate.query(LOCK_FEED_STATE_SQL,
+                (rs, row) -> new FeedState(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+        if (states.isEmpty()) {
+            jdbcTemplate.update(CREATE_FEED_STATE_SQL, jdbcTemplate.queryForObject(LAST_PATIENT_ID_SQL, Long.class));
+            return true;
+        }
+        FeedState state = states.get(0);
+        long backfillNextId = state.backfillNextId();
+        if (backfillNextId < state.backfillLastId()) {
+            // Patients créés avant le flux, sauf ceux modifiés depuis, qui y figurent déjà. Lus sans verrou puis
+            // insérés par ID : un INSERT ... SELECT sur la plage verrouillerait l'intervalle des nouveaux patients
+            long to = Math.min(backfillNextId + publishBatchSize, state.backfillLastId());
+            List<Long> patientIds = jdbcTemplate.queryForList(BACKFILL_SQL, Long.class, backfillNextId, to);
+            if (!patientIds.isEmpty()) {
+                insertChanges(INSERT_IMPORTED_SQL.formatted(
+                        String.join(", ", Collections.nCopies(patientIds.size(), "?"))), patientIds);
+            }
+            backfillNextId = to;
+        }
+        List<Long> seqs = jdbcTemplate.queryForList(UNPUBLISHED_SQL, Long.class, publishBatchSize);
+        if (seqs.isEmpty() && backfillNextId == state.backfillNextId()) {
+            return false;
+        }
+        long first = state.lastPosition() + 1;
+        jdbcTemplate.batchUpdate(PUBLISH_SQL, seqs, seqs.size(), new ParameterizedPreparedStatementSetter<>() {
+            private long position = first;
+
+            @Override
+            public void setValues(PreparedStatement ps, Long seq) throws SQLException {
+                ps.setLong(1, position++);
+                ps.setLong(2, seq);
+            }
+        });
+        jdbcTemplate.update(UPDATE_FEED_STATE_SQL, state.lastPosition() + seqs.size(), backfillNextId);
+        return seqs.size() == publishBatchSize || backfillNextId < state.backfillLastId();
+    }
+
+    /**
+     * Deletes the published changes older than the retention that are superseded by a later change of the same
+     * patient, and the tombstones older than the retention, {@code publishBatchSize} changes examined per
+     * transaction, in feed order.
+     * <p>
+     * The latest change of each live patient is kept whatever its age, so the feed read from the beginning lists
+     * every patient. The position of the last compacted tombstone is recorded in the same transaction as its
+     * deletion: tokens before it expire.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${patient.changes.compact-interval-ms:3600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void compact() {
+        Instant horizon = Instant.now().minus(retention);
+        Long after = 0L;
+        while (after != null) {
+            long from = after;
+            after = transactionTemplate.execute(status -> compactBatch(from, horizon));
+        }
+    }
+
+    /**
+     * Compacts the changes after a position, up to {@code publishBatchSize} of them.
+     *
+     * @return the position to continue from, or {@code null} once the changes reach the retention horizon.
+     */
+    private Long compactBatch(long after, Instant horizon) {
+        List<CompactionCandidate> candidates = jdbcTemplate.query(COMPACTION_SQL,
+                (rs, row) -> new CompactionCandidate(rs.getLong(1), rs.getLong(2),
+                        PatientChange.Type.valueOf(rs.getString(3)), rs.getTimestamp(4).toInstant(), rs.getBoolean(5)),
+                after, publishBatchSize);
+        List<Long> obsolete = new ArrayList<>();
+        long lastTombstone = 0;
+        long last = after;
+        boolean horizonReached = candidates.size() < publishBatchSize;
+        for (CompactionCandidate candidate : candidates) {
+            if (!candidate.changedAt().isBefore(horizon)) {
+                horizonReached = true;
+                break;
+            }
+            if (candidate.type() == PatientChange.Type.DELETE) {
+                obsolete.add(candidate.seq());
+                lastTombstone = candidate.position();
+            } else if (candidate.superseded()) {
+                obsolete.add(candidate.seq());
+            }
+            last = candidate.position();
+        }
+        if (!obsolete.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_CHANGE_SQL, obsolete, obsolete.size(), (ps, seq) -> ps.setLong(1, seq));
+        }
+        if (lastTombstone > 0) {
+            jdbcTemplate.update(EXPIRE_TOKENS_SQL, lastTombstone, lastTombstone);
+        }
+        return horizonReached ? null : last;
+    }
+
+    /**
+     * The locked state of the feed read by a publication batch.
+     */
+    private record FeedState(long lastPosition, long backfillNextId, long backfillLastId) {
+    }
+
+    /**
+     * A published change examined by compaction.
+     */
+    private record CompactionCandidate(long seq, long position, PatientChange.Type type, Instant changedAt,
+                                       boolean superseded) {
+    }
+}
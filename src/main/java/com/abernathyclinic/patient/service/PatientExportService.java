@@ -0,0 +1,365 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientExportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service exporting the whole {@code patients} table to a CSV file, for reporting.
+ * <p>
+ * Patients are read in ID order through a forward-only JDBC cursor, {@code fetchSize} rows at a time, and written
+ * to the file through a {@link FileChannel} as they arrive, so memory use does not depend on the size of the table.
+ * Rows bypass Hibernate, which would otherwise instantiate and track an entity per patient. The read runs in a
+ * read-only transaction, on the read replica when one is configured.
+ * </p>
+ * <p>
+ * Every {@code checkpointRows} rows, the file is forced to disk and the ID of the last exported patient is saved
+ * with the file size in a checkpoint file next to it. An interrupted export is resumed from there by the next run
+ * for the same file: the file is truncated to the saved size and the cursor restarts after the saved ID. A checkpoint
+ * that cannot be parsed or points past the end of the file is ignored with a warning, and the export starts over.
+ * A resumed export is therefore not a single snapshot of the table. Compressed exports write each chunk between two
+ * checkpoints as its own gzip member, which gzip readers decode as one stream.
+ * </p>
+ */
+@Service
+public class PatientExportService {
+
+    static final String SELECT_SQL = "SELECT id, nom, prenom, date_de_naissance, genre, adresse, telephone, "
+            + "created_at, last_modified, who_last_modified, version FROM patients WHERE id > ? ORDER BY id";
+
+    static final String CSV_HEADER = "id,nom,prenom,dateDeNaissance,genre,adresse,telephone,"
+            + "createdAt,lastModified,whoLastModified,version\n";
+
+    private static final int COLUMN_COUNT = 11;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(PatientExportService.class);
+
+    /**
+     * Formats of the export file.
+     */
+    public enum Format {
+        CSV("csv"),
+        CSV_GZIP("csv.gz");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Finds the format written to files with an extension.
+         *
+         * @param extension the file extension, such as {@code csv.gz}.
+         * @return the matching format.
+         * @throws IllegalArgumentException if no format has this extension.
+         */
+        public static Format ofExtension(String extension) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(extension)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + extension);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path directory;
+
+    private final Format scheduledFormat;
+
+    private final int fetchSize;
+
+    private final int checkpointRows;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Constructs a new {@code PatientExportService}.
+     *
+     * @param jdbcTemplate       the template used to read the patients.
+     * @param transactionManager the transaction manager the cursor is read in.
+     * @param directory          the directory the export files are written to.
+     * @param scheduledFormat    the extension of the format of the scheduled exports.
+     * @param fetchSize          the number of rows fetched from the database at a time.
+     * @param checkpointRows     the number of rows written between two checkpoints.
+     */
+    public PatientExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${patient.export.directory:exports}") Path directory,
+                                @Value("${patient.export.format:csv.gz}") String scheduledFormat,
+                                @Value("${patient.export.fetch-size:1000}") int fetchSize,
+                                @Value("${patient.export.checkpoint-rows:10000}") int checkpointRows) {
+        if (fetchSize < 1 || checkpointRows < 1) {
+            throw new IllegalArgumentException("Export fetch size and checkpoint rows must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.directory = directory;
+        this.scheduledFormat = Format.ofExtension(scheduledFormat);
+        this.fetchSize = fetchSize;
+        this.checkpointRows = checkpointRows;
+    }
+
+    /**
+     * Runs the scheduled export, by default every night. Failures are logged; the next run of the day resumes
+     * the export.
+     */
+    @Scheduled(cron = "${patient.export.cron:-}")
+    public void exportScheduled() {
+        try {
+            export(scheduledFormat);
+        } catch (IOException | RuntimeException e) {
+            log.error("Scheduled patient export failed", e);
+        }
+    }
+
+    /**
+     * Exports all patients to the file of the day, {@code patients-yyyy-MM-dd.<extension>}, resuming it if an
+     * earlier run of the day was interrupted.
+     *
+     * @param format the format of the file.
+     * @return the {@link PatientExportReport} of the export.
+     * @throws IOException           if the file cannot be written.
+     * @throws IllegalStateException if an export is already running.
+     */
+    public PatientExportReport export(Format format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A patient export is already running");
+        }
+        try {
+            Files.createDirectories(directory);
+            return export(directory.resolve("patients-" + LocalDate.now() + "." + format.getExtension()), format);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Exports all patients to a file, resuming it if its checkpoint file exists.
+     *
+     * @param file   the export file.
+     * @param format the format of the file.
+     * @return the {@link PatientExportReport} of the export.
+     * @throws IOException if the file cannot be written.
+     */
+    PatientExportReport export(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Exporter exporter = new Exporter(channel, format, checkpointFile);
+            long resumedAfter = exporter.resume();
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SELECT_SQL, ps -> {
+                    ps.setFetchSize(fetchSize);
+                    ps.setLong(1, resumedAfter);
+                }, exporter));
+                exporter.endChunk();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.deleteIfExists(checkpointFile);
+            long elapsedNanos = System.nanoTime() - start;
+            double rowsPerSecond = elapsedNanos == 0 ? 0 : exporter.exported * 1_000_000_000d / elapsedNanos;
+            log.info("Exported {} patients to {} in {} ms ({} rows/s)", exporter.exported, file,
+                    elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+            return new PatientExportReport(file.toString(), resumedAfter, exporter.exported, channel.size(),
+                    elapsedNanos / 1_000_000, rowsPerSecond);
+        }
+    }
+
+    /**
+     * Appends a field to a CSV line, double-quoted if it contains a separator, a quote or a line break.
+     *
+     * @param line  the line being written.
+     * @param value the field value, {@code null} being written as an empty field.
+     */
+    static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Writes the rows of the cursor to the export file, one chunk between two checkpoints at a time.
+     */
+    private final class Exporter implements RowCallbackHandler {
+
+        private final FileChannel channel;
+
+        private final Format format;
+
+        private final Path checkpointFile;
+
+        private final OutputStream channelOutput;
+
+        private final StringBuilder line = new StringBuilder(256);
+
+        private OutputStream output;
+
+        private GZIPOutputStream gzipOutput;
+
+        private long lastId;
+
+        private long exported;
+
+        private int chunkRows;
+
+        Exporter(FileChannel channel, Format format, Path checkpointFile) {
+            this.channel = channel;
+            this.format = format;
+            this.checkpointFile = checkpointFile;
+            // Jamais fermé ici : le canal est fermé par l'appelant
+            this.channelOutput = Channels.newOutputStream(channel);
+        }
+
+        /**
+         * Positions the file at the last checkpoint, or empties it and writes the header if there is none.
+         *
+         * @return the ID after which the export continues.
+         */
+        long resume() throws IOException {
+            if (Files.exists(checkpointFile)) {
+                // US-ASCII : un fichier corrompu donne des caractères invalides plutôt qu'une exception de décodage
+                String checkpoint = new String(Files.readAllBytes(checkpointFile), StandardCharsets.US_ASCII).trim();
+                String[] fields = checkpoint.split(" ");
+                try {
+                    if (fields.length != 2) {
+                        throw new IllegalArgumentException("expected an ID and a file position");
+                    }
+                    long id = Long.parseLong(fields[0]);
+                    long position = Long.parseLong(fields[1]);
+                    if (id < 0) {
+                        throw new IllegalArgumentException("negative ID " + id);
+                    }
+                    if (position <= 0 || position > channel.size()) {
+                        throw new IllegalArgumentException("position " + position + " out of a file of "
+                                + channel.size() + " bytes");
+                    }
+                    channel.truncate(position);
+                    channel.position(position);
+                    lastId = id;
+                    return lastId;
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring invalid export checkpoint {} ({}): {}; restarting the export",
+                            checkpointFile, checkpoint, e.getMessage());
+                }
+            }
+            channel.truncate(0);
+            channel.position(0);
+            output().write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            endChunk();
+            return 0;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            lastId = rs.getLong(1);
+            line.setLength(0);
+            line.append(lastId);
+            for (int column = 2; column <= COLUMN_COUNT; column++) {
+                line.append(',');
+                appendCsvField(line, rs.getString(column));
+            }
+            line.append('\n');
+            try {
+                output().write(line.toString().getBytes(StandardCharsets.UTF_8));
+                exported++;
+                if (++chunkRows == checkpointRows) {
+                    endChunk();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes out the current chunk, forces it to disk and saves the checkpoint after it.
+         */
+        void endChunk() throws IOException {
+            if (output == null) {
+                return;
+            }
+            output.flush();
+            if (gzipOutput != null) {
+                gzipOutput.finish();
+                gzipOutput = null;
+            }
+            output = null;
+            chunkRows = 0;
+            channel.force(false);
+            // Écrit, forcé sur disque puis renommé, pour ne jamais lire un point de reprise à moitié écrit
+            Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            ByteBuffer checkpoint = ByteBuffer.wrap(
+                    (lastId + " " + channel.position()).getBytes(StandardCharsets.US_ASCII));
+            try (FileChannel checkpointChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (checkpoint.hasRemaining()) {
+                    checkpointChannel.write(checkpoint);
+                }
+                checkpointChannel.force(true);
+            }
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private OutputStream output() throws IOException {
+            if (output == null) {
+                if (format == Format.CSV_GZIP) {
+                    gzipOutput = new GZIPOutputStream(channelOutput, BUFFER_SIZE);
+                    output = new BufferedOutputStream(gzipOutput, BUFFER_SIZE);
+                } else {
+                    output = new BufferedOutputStream(channelOutput, BUFFER_SIZE);
+                }
+            }
+            return output;
+        }
+    }
+}
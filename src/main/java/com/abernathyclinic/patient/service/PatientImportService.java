@@ -0,0 +1,440 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.audit.PatientAuditEntry;
+import com.abernathyclinic.patient.audit.PatientAuditWriter;
+import com.abernathyclinic.patient.dto.PatientImportReport;
+import com.abernathyclinic.patient.dto.PatientImportReport.RowError;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Service for importing patients in bulk.
+ * <p>
+ * Rows are read one at a time from a JSON array or a CSV document, validated as they arrive,
+ * and written with one multi-row {@code INSERT} per batch. Each batch is committed in its own transaction, so memory
+ * use is bounded by the batch size and rows already committed are kept if a later batch fails.
+ * Inserts bypass Hibernate, whose {@code IDENTITY} ID generation would otherwise insert rows one by one.
+ * A single statement with a known number of rows is given a consecutive range of IDs, starting at the generated key
+ * it reports: the insertions are recorded from that range in the change feed, in the same transaction, and in the
+ * audit trail once committed. A batch rejected by a constraint or data error is
+ * split in halves and retried, down to single rows, so that only the offending rows are reported and rejected.
+ * Each batch updates the patient statistics
+ * with two grouped statements rather than one trigger run per row. Imported patients are marked as
+ * last modified by the user running the import, whatever the rows say.
+ * </p>
+ */
+@Service
+public class PatientImportService {
+
+    static final String INSERT_SQL = "INSERT INTO patients "
+            + "(nom, prenom, date_de_naissance, genre, adresse, telephone, created_at, last_modified, who_last_modified) "
+            + "VALUES ";
+
+    private static final String ROW_VALUES_SQL = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMNS = 9;
+
+    /**
+     * Maximum number of rows per batch: MariaDB accepts at most 65535 parameters in a prepared statement.
+     */
+    static final int MAX_BATCH_SIZE = 65_535 / COLUMNS;
+
+    /**
+     * Maximum number of row errors kept in the report; further errors are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * Maximum length of a CSV record spanning several lines; an unclosed quote beyond it stops the import.
+     */
+    static final int MAX_CSV_RECORD_LENGTH = 64 * 1024;
+
+    private static final List<String> CSV_COLUMNS =
+            List.of("nom", "prenom", "dateDeNaissance", "genre", "adresse", "telephone");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final PatientChangeService patientChangeService;
+
+    private final PatientAuditWriter patientAuditWriter;
+
+    private final PatientStatisticsService patientStatisticsService;
+
+    private final int batchSize;
+
+    /**
+     * Constructs a new {@code PatientImportService}.
+     *
+     * @param jdbcTemplate             the template used to run the batch inserts.
+     * @param transactionManager       the transaction manager used to commit each batch.
+     * @param objectMapper             the mapper used to read JSON rows.
+     * @param patientChangeService     the service recording the imported patients in the change feed.
+     * @param patientAuditWriter       the writer of the audit entries of the imported patients.
+     * @param patientStatisticsService the service counting the imported patients in the statistics.
+     * @param batchSize                the number of rows written per statement, at most {@link #MAX_BATCH_SIZE}.
+     * @throws IllegalArgumentException if the batch size is not between 1 and {@link #MAX_BATCH_SIZE}.
+     */
+    public PatientImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper, PatientChangeService patientChangeService,
+                                PatientAuditWriter patientAuditWriter, PatientStatisticsService patientStatisticsService,
+                                @Value("${patient.import.batch-size:1000}") int batchSize) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("The import batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.patientChangeService = patientChangeService;
+        this.patientAuditWriter = patientAuditWriter;
+        this.patientStatisticsService = patientStatisticsService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports patients from a JSON array of patient objects.
+     * <p>
+     * Rows that cannot be mapped or fail validation are rejected individually. If the document
+     * itself becomes malformed, the import stops at that point and the rows read so far are kept.
+     * </p>
+     *
+     * @param input the JSON document.
+     * @return the {@link PatientImportReport} of the import.
+     * @throws IOException              if the input cannot be read.
+     * @throws IllegalArgumentException if the document is not a JSON array.
+     */
+    public PatientImportReport importJson(InputStream input) throws IOException {
+        Importer importer = new Importer();
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of patients");
+            }
+            long row = 0;
+            try {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    row++;
+                    JsonNode node = parser.readValueAsTree();
+                    try {
+                        importer.accept(row, objectMapper.treeToValue(node, Patient.class));
+                    } catch (JsonProcessingException e) {
+                        importer.reject(row, e.getOriginalMessage());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                importer.reject(row, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+            }
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Imports patients from a CSV document.
+     * <p>
+     * The first line is a header naming the columns, among {@code nom}, {@code prenom},
+     * {@code dateDeNaissance} (ISO {@code yyyy-MM-dd}), {@code genre}, {@code adresse} and {@code telephone}.
+     * Fields may be quoted with {@code "}, doubling quotes inside quoted fields. Quoted fields may span several
+     * lines, such as a multi-line {@code adresse}; a quote left open at the end of the input, or for more than
+     * {@value #MAX_CSV_RECORD_LENGTH} characters, rejects the row and stops the import.
+     * </p>
+     *
+     * @param input the CSV document.
+     * @return the {@link PatientImportReport} of the import.
+     * @throws IOException              if the input cannot be read.
+     * @throws IllegalArgumentException if the header is missing or names an unknown column.
+     */
+    public PatientImportReport importCsv(Reader input) throws IOException {
+        Importer importer = new Importer();
+        BufferedReader reader = new BufferedReader(input);
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("Expected a CSV header line");
+        }
+        List<String> columns = parseCsvLine(header);
+        for (String column : columns) {
+            if (!CSV_COLUMNS.contains(column.trim())) {
+                throw new IllegalArgumentException("Unknown CSV column: " + column);
+            }
+        }
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            StringBuilder record = new StringBuilder(line);
+            int quotes = countQuotes(line);
+            // Nombre impair de guillemets : le champ entre guillemets continue sur la ligne suivante
+            while (quotes % 2 != 0) {
+                String next = record.length() > MAX_CSV_RECORD_LENGTH ? null : reader.readLine();
+                if (next == null) {
+                    importer.reject(row, "Unterminated quoted field, import stopped");
+                    return importer.finish();
+                }
+                record.append('\n').append(next);
+                quotes += countQuotes(next);
+            }
+            List<String> fields = parseCsvLine(record.toString());
+            if (fields.size() != columns.size()) {
+                importer.reject(row, "Expected " + columns.size() + " fields but found " + fields.size());
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                values.put(columns.get(i).trim(), fields.get(i).isEmpty() ? null : fields.get(i));
+            }
+            try {
+                Patient patient = new Patient();
+                patient.setNom(values.get("nom"));
+                patient.setPrenom(values.get("prenom"));
+                String dateDeNaissance = values.get("dateDeNaissance");
+                patient.setDateDeNaissance(dateDeNaissance == null ? null : LocalDate.parse(dateDeNaissance));
+                patient.setGenre(values.get("genre"));
+                patient.setAdresse(values.get("adresse"));
+                patient.setTelephone(values.get("telephone"));
+                importer.accept(row, patient);
+            } catch (DateTimeParseException e) {
+                importer.reject(row, "Invalid dateDeNaissance: " + e.getParsedString());
+            }
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Checks the fields required by the {@code patients} table.
+     *
+     * @param patient the patient to validate.
+     * @return the reason the patient is invalid, or {@code null} if it is valid.
+     */
+    static String validate(Patient patient) {
+        if (patient == null) {
+            return "Empty row";
+        }
+        if (patient.getNom() == null || patient.getNom().isBlank()) {
+            return "nom is required";
+        }
+        if (patient.getPrenom() == null || patient.getPrenom().isBlank()) {
+            return "prenom is required";
+        }
+        if (patient.getDateDeNaissance() == null) {
+            return "dateDeNaissance is required";
+        }
+        if (patient.getDateDeNaissance().isAfter(LocalDate.now())) {
+            return "dateDeNaissance cannot be in the future";
+        }
+        if (patient.getGenre() == null || patient.getGenre().isBlank()) {
+            return "genre is required";
+        }
+        return null;
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Splits one CSV record into fields, honouring double-quoted fields.
+     *
+     * @param line the record to split, possibly spanning several lines.
+     * @return the fields of the record.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Accumulates validated rows and writes them in batches, keeping the counters of one import.
+     */
+    private final class Importer {
+
+        private final long start = System.nanoTime();
+
+        private final String modifiedBy = PatientAuditEntry.currentUsername();
+
+        private final List<Patient> batch = new ArrayList<>(batchSize);
+
+        private final List<Long> batchRows = new ArrayList<>(batchSize);
+
+        private final List<RowError> errors = new ArrayList<>();
+
+        private long received;
+
+        private long imported;
+
+        private long rejected;
+
+        void accept(long row, Patient patient) {
+            received++;
+            String error = validate(patient);
+            if (error != null) {
+                rejected++;
+                addError(row, error);
+                return;
+            }
+            batch.add(patient);
+            batchRows.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            received++;
+            rejected++;
+            addError(row, message);
+        }
+
+        PatientImportReport finish() {
+            flush();
+            long elapsedNanos = System.nanoTime() - start;
+            double rowsPerSecond = elapsedNanos == 0 ? 0 : imported * 1_000_000_000d / elapsedNanos;
+            return new PatientImportReport(received, imported, rejected, List.copyOf(errors),
+                    elapsedNanos / 1_000_000, rowsPerSecond);
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            write(0, batch.size());
+            batch.clear();
+            batchRows.clear();
+        }
+
+        /**
+         * Writes rows {@code from} to {@code to} (exclusive) of the batch in one transaction. If a row breaks
+         * a constraint or does not fit its column, each half is retried on its own, down to the offending rows.
+         * Other database failures reject the rows at once.
+         */
+        private void write(int from, int to) {
+            List<Patient> patients = batch.subList(from, to);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Long> ids = patientStatisticsService.recordBulkInsert(() -> insertBatch(patients));
+                    patientChangeService.recordInserts(ids);
+                    patientAuditWriter.recordAfterCommit(auditEntries(patients, ids));
+                });
+                imported += patients.size();
+            } catch (DataIntegrityViolationException e) {
+                if (patients.size() > 1) {
+                    int middle = (from + to) >>> 1;
+                    write(from, middle);
+                    write(middle, to);
+                    return;
+                }
+                rejected++;
+                addError(batchRows.get(from), "Rejected by the database: " + e.getMostSpecificCause().getMessage());
+            } catch (DataAccessException e) {
+                rejected += patients.size();
+                for (Long row : batchRows.subList(from, to)) {
+                    addError(row, "Batch rejected by the database: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        private List<Long> insertBatch(List<Patient> patients) {
+            Date today = Date.valueOf(LocalDate.now());
+            String sql = INSERT_SQL + String.join(", ", Collections.nCopies(patients.size(), ROW_VALUES_SQL));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
+                int column = 0;
+                for (Patient patient : patients) {
+                    ps.setString(++column, patient.getNom());
+                    ps.setString(++column, patient.getPrenom());
+                    ps.setDate(++column, Date.valueOf(patient.getDateDeNaissance()));
+                    ps.setString(++column, patient.getGenre());
+                    ps.setString(++column, patient.getAdresse());
+                    ps.setString(++column, patient.getTelephone());
+                    ps.setDate(++column, today);
+                    ps.setDate(++column, today);
+                    ps.setString(++column, modifiedBy);
+                }
+                return ps;
+            }, keys);
+            // Le driver MariaDB ne renvoie que la première clé (LAST_INSERT_ID), H2 les renvoie toutes ;
+            // une seule colonne générée, dont le nom dépend du driver (ID, insert_id...)
+            long firstId = ((Number) keys.getKeyList().get(0).values().iterator().next()).longValue();
+            return LongStream.range(firstId, firstId + patients.size()).boxed().toList();
+        }
+
+        private List<PatientAuditEntry> auditEntries(List<Patient> patients, List<Long> ids) {
+            Instant now = Instant.now();
+            List<PatientAuditEntry> entries = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                entries.add(new PatientAuditEntry(ids.get(i), PatientChange.Type.INSERT, modifiedBy, now,
+                        PatientAuditEntry.newValues(patients.get(i))));
+            }
+            return entries;
+        }
+
+        private void addError(long row, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+}
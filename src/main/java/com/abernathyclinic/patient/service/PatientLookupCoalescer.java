@@ -0,0 +1,161 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.datasource.ReplicaRoutingDataSource;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coalesces concurrent lookups of patients by ID into a single query.
+ * <p>
+ * A lookup of a patient that is already being loaded for another caller waits for that query instead of running
+ * its own, so a burst of requests for the same patient costs one row read.
+ * </p>
+ * <p>
+ * With a {@code patient.lookup.coalesce-window} greater than zero, lookups of different patients are batched as
+ * well: the first lookup to arrive opens a batch and waits for the window to elapse so that others can join it,
+ * then loads every requested ID with one {@code IN} query on its own thread and hands each waiting caller its
+ * patient. A batch reaching {@code patient.lookup.max-batch-size} IDs is loaded at once by the lookup that filled
+ * it. The window delays every lookup that opens a batch, so it only pays off when many lookups miss the cache
+ * at the same time and each query costs more than the window; it is disabled by default.
+ * </p>
+ * <p>
+ * Waiting callers hold no transaction or connection: only the thread loading the batch does. Loaded patients
+ * fill the patients cache, so they are read from the primary when a read replica is configured.
+ * </p>
+ */
+@Component
+public class PatientLookupCoalescer {
+
+    private final PatientRepository patientRepository;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter coalescedLookups;
+
+    private final Object lock = new Object();
+
+    private final Map<Long, CompletableFuture<Optional<Patient>>> loading = new HashMap<>();
+
+    private Map<Long, CompletableFuture<Optional<Patient>>> batch;
+
+    /**
+     * Constructs a new {@code PatientLookupCoalescer}.
+     *
+     * @param patientRepository the repository loading the batches.
+     * @param meterRegistry     the registry of the {@code patient.lookup.*} metrics.
+     * @param window            how long the first lookup of a batch waits for others to join it, zero to load it at once.
+     * @param maxBatchSize      the number of IDs that makes a batch load without waiting for the end of the window.
+     */
+    public PatientLookupCoalescer(PatientRepository patientRepository, MeterRegistry meterRegistry,
+                                  @Value("${patient.lookup.coalesce-window:PT0S}") Duration window,
+                                  @Value("${patient.lookup.max-batch-size:100}") int maxBatchSize) {
+        this.patientRepository = patientRepository;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("patient.lookup.batch.size")
+                .description("Distinct patient IDs loaded per query")
+                .register(meterRegistry);
+        this.coalescedLookups = Counter.builder("patient.lookup.coalesced")
+                .description("Lookups answered by a query made for another lookup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks a patient up by ID, together with the lookups made concurrently by other threads.
+     *
+     * @param id the ID of the patient.
+     * @return the patient, or empty if no patient has this ID.
+     */
+    public Optional<Patient> findById(Long id) {
+        Map<Long, CompletableFuture<Optional<Patient>>> opened = null;
+        Map<Long, CompletableFuture<Optional<Patient>>> toLoad = null;
+        CompletableFuture<Optional<Patient>> result;
+        synchronized (lock) {
+            result = loading.get(id);
+            if (result == null && batch != null) {
+                result = batch.get(id);
+            }
+            if (result != null) {
+                coalescedLookups.increment();
+            } else {
+                if (batch == null) {
+                    batch = new HashMap<>();
+                    opened = batch;
+                }
+                result = new CompletableFuture<>();
+                batch.put(id, result);
+                if (windowNanos == 0 || batch.size() >= maxBatchSize) {
+                    toLoad = startLoading();
+                }
+            }
+        }
+        if (toLoad == null && opened != null) {
+            LockSupport.parkNanos(windowNanos);
+            synchronized (lock) {
+                // Le lot a pu être chargé entre-temps par la recherche qui l'a rempli
+                if (batch == opened) {
+                    toLoad = startLoading();
+                }
+            }
+        }
+        if (toLoad != null) {
+            load(toLoad);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Map<Long, CompletableFuture<Optional<Patient>>> startLoading() {
+        Map<Long, CompletableFuture<Optional<Patient>>> started = batch;
+        batch = null;
+        loading.putAll(started);
+        return started;
+    }
+
+    private void load(Map<Long, CompletableFuture<Optional<Patient>>> lookups) {
+        batchSizes.record(lookups.size());
+        try {
+            Map<Long, Patient> found = new HashMap<>();
+            if (lookups.size() == 1) {
+                Long id = lookups.keySet().iterator().next();
+                ReplicaRoutingDataSource.readFromPrimary(() -> patientRepository.findById(id))
+                        .ifPresent(patient -> found.put(id, patient));
+            } else {
+                for (Patient patient : ReplicaRoutingDataSource.readFromPrimary(
+                        () -> patientRepository.findAllById(lookups.keySet()))) {
+                    found.put(patient.getId(), patient);
+                }
+            }
+            lookups.forEach((id, lookup) -> lookup.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            lookups.values().forEach(lookup -> lookup.completeExceptionally(e));
+        } finally {
+            synchronized (lock) {
+                lookups.forEach(loading::remove);
+            }
+        }
+    }
+}
@@ -1,43 +1,258 @@
 package com.abernathyclinic.patient.service;
 
+import com.abernathyclinic.patient.audit.PatientAuditEntry;
+import com.abernathyclinic.patient.audit.PatientAuditWriter;
+import com.abernathyclinic.patient.config.CacheConfig;
+import com.abernathyclinic.patient.datasource.ReplicaRoutingDataSource;
+import com.abernathyclinic.patient.dto.PatientSearchCriteria;
+import com.abernathyclinic.patient.dto.PatientSearchCursor;
+import com.abernathyclinic.patient.dto.PatientSummary;
 import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientAudit;
+import com.abernathyclinic.patient.model.PatientChange;
+import com.abernathyclinic.patient.repository.PatientAuditRepository;
 import com.abernathyclinic.patient.repository.PatientRepository;
-import jakarta.transaction.Transactional;
+import com.abernathyclinic.patient.repository.PatientSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing patient operations.
  * <p>
  * This service provides methods for creating, updating, retrieving, and deleting patients.
- * All operations are transactional to ensure data consistency.
+ * All operations are transactional to ensure data consistency. Read operations run in read-only
+ * transactions: Hibernate loads their entities read-only, without the snapshots used for dirty checking,
+ * and never flushes them.
+ * </p>
+ * <p>
+ * Patients read by ID are cached in the {@value CacheConfig#PATIENTS_CACHE} cache, and evicted
+ * from it when they are saved or deleted through this service. Cache misses of concurrent lookups by ID are
+ * coalesced into one query, and batch lookups read every missing patient with a single {@code IN} query.
+ * </p>
+ * <p>
+ * Every write is recorded in the change feed by {@link PatientChangeService}, in the same transaction.
+ * </p>
+ * <p>
+ * Every write also sets {@code whoLastModified} to the authenticated user and is audited. Writes going through
+ * the persistence context are audited by the {@code PatientAuditListener}; single-statement updates and deletes
+ * hand their own entry to the {@link PatientAuditWriter} once committed, with the new values only.
  * </p>
  */
 @Transactional
 @Service
 public class PatientService {
 
+    /**
+     * Fields that can be changed by {@link #patchPatient(Long, Map, Long)}, with the type of their value.
+     */
+    public static final Map<String, Class<?>> PATCHABLE_FIELDS = Map.of(
+            "nom", String.class,
+            "prenom", String.class,
+            "dateDeNaissance", LocalDate.class,
+            "genre", String.class,
+            "adresse", String.class,
+            "telephone", String.class);
+
+    private static final Set<String> REQUIRED_FIELDS = Set.of("nom", "prenom", "dateDeNaissance", "genre");
+
     private final PatientRepository patientRepository;
 
+    private final EntityManager entityManager;
+
+    private final PatientChangeService patientChangeService;
+
+    private final PatientAuditWriter patientAuditWriter;
+
+    private final PatientAuditRepository patientAuditRepository;
+
+    private final PatientLookupCoalescer patientLookupCoalescer;
+
+    private final CacheManager cacheManager;
+
     /**
      * Constructs a new {@code PatientService} with the specified {@link PatientRepository}.
      *
-     * @param patientRepository the repository used for managing patient data.
+     * @param patientRepository    the repository used for managing patient data.
+     * @param entityManager        the entity manager used to detach streamed patients.
+     * @param patientChangeService the service recording each write in the change feed.
+     * @param patientAuditWriter     the writer of the audit entries of single-statement writes.
+     * @param patientAuditRepository the repository reading the audit trail back.
+     * @param patientLookupCoalescer the coalescer of concurrent lookups by ID missing the cache.
+     * @param cacheManager           the manager of the {@value CacheConfig#PATIENTS_CACHE} cache, read and filled
+     *                               by batch lookups.
      */
-    public PatientService(PatientRepository patientRepository) {
+    public PatientService(PatientRepository patientRepository, EntityManager entityManager,
+                          PatientChangeService patientChangeService, PatientAuditWriter patientAuditWriter,
+                          PatientAuditRepository patientAuditRepository, PatientLookupCoalescer patientLookupCoalescer,
+                          CacheManager cacheManager) {
         this.patientRepository = patientRepository;
+        this.entityManager = entityManager;
+        this.patientChangeService = patientChangeService;
+        this.patientAuditWriter = patientAuditWriter;
+        this.patientAuditRepository = patientAuditRepository;
+        this.patientLookupCoalescer = patientLookupCoalescer;
+        this.cacheManager = cacheManager;
     }
 
     /**
      * Saves or updates a patient in the database.
+     * <p>
+     * An update carrying a version only succeeds if the patient still has that version. An update without
+     * a version overwrites the current one, as before patients were versioned.
+     * </p>
      *
      * @param patient the patient object to save or update.
      * @return the saved or updated {@link Patient} object.
+     * @throws OptimisticLockingFailureException if the patient has been modified since the version it carries.
      */
+    @CacheEvict(cacheNames = CacheConfig.PATIENTS_CACHE, key = "#patient.id", condition = "#patient.id != null")
     public Patient saveOrUpdatePatient(Patient patient) {
-        return patientRepository.save(patient);
+        boolean created = patient.getId() == null;
+        if (!created && patient.getVersion() == null) {
+            // Sans version, Spring Data prendrait le patient pour un nouveau ; un patient inconnu reste fusionné
+            patient.setVersion(patientRepository.findVersionById(patient.getId()).orElse(0L));
+        }
+        patient.setWhoLastModified(PatientAuditEntry.currentUsername());
+        Patient saved = patientRepository.save(patient);
+        patientChangeService.record(saved.getId(), created ? PatientChange.Type.INSERT : PatientChange.Type.UPDATE);
+        return saved;
+    }
+
+    /**
+     * Updates an existing patient with a single {@code UPDATE} statement.
+     * <p>
+     * Unlike {@link #saveOrUpdatePatient(Patient)}, the patient is not loaded and merged first,
+     * and a patient that does not exist is not created. Once updated, {@code patient} holds the modification date
+     * written and its new version, which is only read back, alone, when {@code expectedVersion} is {@code null}.
+     * Its creation date, which is not written, is left as given.
+     * </p>
+     *
+     * @param patient         the patient object holding the ID and the new values.
+     * @param expectedVersion the version the patient must still have, or {@code null} to skip the check.
+     * @return the number of updated rows, 0 if no patient has this ID.
+     * @throws OptimisticLockingFailureException if the patient exists but its version is not {@code expectedVersion}.
+     */
+    @CacheEvict(cacheNames = CacheConfig.PATIENTS_CACHE, key = "#patient.id")
+    public int updatePatient(Patient patient, Long expectedVersion) {
+        patient.setWhoLastModified(PatientAuditEntry.currentUsername());
+        LocalDate today = LocalDate.now();
+        int updated = patientRepository.updateRow(patient, today, expectedVersion);
+        checkVersion(updated, patient.getId(), expectedVersion);
+        if (updated > 0) {
+            patientChangeService.record(patient.getId(), PatientChange.Type.UPDATE);
+            patientAuditWriter.recordAfterCommit(PatientAuditEntry.of(patient.getId(), PatientChange.Type.UPDATE,
+                    PatientAuditEntry.newValues(patient)));
+            patient.setLastModified(today);
+            patient.setVersion(newVersion(patient.getId(), expectedVersion));
+        }
+        return updated;
+    }
+
+    /**
+     * Applies field-level changes to an existing patient.
+     * <p>
+     * A single {@code UPDATE} statement writes the changed columns and {@code last_modified} only;
+     * the patient is not loaded first.
+     * </p>
+     *
+     * @param id              the ID of the patient to update.
+     * @param changes         the new value of each changed field, keyed by field name among {@link #PATCHABLE_FIELDS}.
+     * @param expectedVersion the version the patient must still have, or {@code null} to skip the check.
+     * @return the new version of the patient, or empty if no patient has this ID.
+     * @throws IllegalArgumentException          if there is no change, a field cannot be patched, a required field
+     *                                           is set to {@code null} or a value has the wrong type.
+     * @throws OptimisticLockingFailureException if the patient exists but its version is not {@code expectedVersion}.
+     */
+    @CacheEvict(cacheNames = CacheConfig.PATIENTS_CACHE, key = "#id")
+    public Optional<Long> patchPatient(Long id, Map<String, Object> changes, Long expectedVersion) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("No field to update");
+        }
+        changes.forEach((field, value) -> {
+            Class<?> type = PATCHABLE_FIELDS.get(field);
+            if (type == null) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field);
+            }
+            if (value == null ? REQUIRED_FIELDS.contains(field) : !type.isInstance(value)) {
+                throw new IllegalArgumentException("Invalid value for field: " + field);
+            }
+        });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Patient> update = criteriaBuilder.createCriteriaUpdate(Patient.class);
+        Root<Patient> root = update.from(Patient.class);
+        changes.forEach((field, value) -> update.set(root.get(field), value));
+        update.set(root.<LocalDate>get("lastModified"), LocalDate.now());
+        update.set(root.<String>get("whoLastModified"), PatientAuditEntry.currentUsername());
+        update.set(root.<Long>get("version"), criteriaBuilder.sum(root.<Long>get("version"), 1L));
+        update.where(expectedVersion == null
+                ? criteriaBuilder.equal(root.get("id"), id)
+                : criteriaBuilder.and(criteriaBuilder.equal(root.get("id"), id),
+                criteriaBuilder.equal(root.get("version"), expectedVersion)));
+        int updated = entityManager.createQuery(update).executeUpdate();
+        checkVersion(updated, id, expectedVersion);
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        patientChangeService.record(id, PatientChange.Type.UPDATE);
+        Map<String, Map<String, Object>> audited = new LinkedHashMap<>();
+        changes.forEach((field, value) -> audited.put(field, PatientAuditEntry.change(value)));
+        patientAuditWriter.recordAfterCommit(PatientAuditEntry.of(id, PatientChange.Type.UPDATE, audited));
+        return Optional.of(newVersion(id, expectedVersion));
+    }
+
+    /**
+     * Returns the version a patient has just been given by a single-statement update.
+     * <p>
+     * A conditional update moved the patient from {@code expectedVersion} to the next one, so nothing is read.
+     * Otherwise only the version is read back, within the transaction holding the row lock.
+     * </p>
+     *
+     * @param id              the ID of the updated patient.
+     * @param expectedVersion the version the update was conditioned on, or {@code null}.
+     * @return the new version of the patient.
+     */
+    private long newVersion(Long id, Long expectedVersion) {
+        return expectedVersion != null ? expectedVersion + 1 : patientRepository.findVersionById(id).orElseThrow();
+    }
+
+    /**
+     * Tells a conditional update that matched no row because of a version mismatch apart from one on a missing patient.
+     *
+     * @param updated         the number of rows updated.
+     * @param id              the ID of the patient.
+     * @param expectedVersion the version the update was conditioned on, or {@code null}.
+     * @throws OptimisticLockingFailureException if no row was updated but the patient exists.
+     */
+    private void checkVersion(int updated, Long id, Long expectedVersion) {
+        if (updated == 0 && expectedVersion != null && patientRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException(
+                    "Patient " + id + " was modified since version " + expectedVersion);
+        }
     }
 
     /**
@@ -45,26 +260,158 @@ public class PatientService {
      *
      * @return a list of {@link Patient} objects.
      */
+    @Transactional(readOnly = true)
     public List<Patient> getAllPatients() {
         return patientRepository.findAll();
     }
 
+    /**
+     * Retrieves one keyset page of patients, ordered by ID.
+     *
+     * @param after the ID after which the page starts, or {@code null} to start from the beginning.
+     * @param limit the maximum number of patients to return.
+     * @return a list of at most {@code limit} {@link Patient} objects whose ID is greater than {@code after}.
+     */
+    @Transactional(readOnly = true)
+    public List<Patient> getPatientsAfter(Long after, int limit) {
+        return patientRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(limit));
+    }
+
+    /**
+     * Retrieves one keyset page of patient summaries, ordered by ID.
+     * <p>
+     * Unlike {@link #getPatientsAfter(Long, int)}, only the columns of {@link PatientSummary} are read,
+     * straight into records, so listing many patients does not go through the persistence context.
+     * </p>
+     *
+     * @param after the ID after which the page starts, or {@code null} to start from the beginning.
+     * @param limit the maximum number of summaries to return.
+     * @return a list of at most {@code limit} {@link PatientSummary} objects whose ID is greater than {@code after}.
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSummary> getPatientSummariesAfter(Long after, int limit) {
+        return patientRepository.findSummariesByIdGreaterThan(after == null ? 0L : after, Limit.of(limit));
+    }
+
+    /**
+     * Searches patients by combinable criteria, one keyset page at a time.
+     * <p>
+     * Name searches are ordered by name, so that the name index both filters and orders the results;
+     * see {@link PatientSpecifications#sortOf(PatientSearchCriteria)}.
+     * </p>
+     *
+     * @param criteria the search criteria; name criteria are prefix matches.
+     * @param after    the position after which the page starts, or {@code null} to start from the beginning.
+     * @param limit    the maximum number of patients to return.
+     * @return a list of at most {@code limit} matching {@link Patient} objects.
+     */
+    @Transactional(readOnly = true)
+    public List<Patient> searchPatients(PatientSearchCriteria criteria, PatientSearchCursor after, int limit) {
+        return patientRepository.findBy(PatientSpecifications.matching(criteria, after),
+                query -> query.sortBy(PatientSpecifications.sortOf(criteria)).limit(limit).all());
+    }
+
+    /**
+     * Streams all patients whose ID is greater than {@code after}, in ID order.
+     * <p>
+     * Rows are read through a forward-only cursor and each patient is detached once handed to
+     * {@code action}, so the persistence context does not grow with the size of the table.
+     * </p>
+     *
+     * @param after  the ID after which the stream starts, or {@code null} to start from the beginning.
+     * @param action the callback invoked for each patient.
+     */
+    @Transactional(readOnly = true)
+    public void streamPatientsAfter(Long after, Consumer<Patient> action) {
+        try (Stream<Patient> patients = patientRepository.streamByIdGreaterThan(after == null ? 0L : after)) {
+            patients.forEach(patient -> {
+                action.accept(patient);
+                entityManager.detach(patient);
+            });
+        }
+    }
+
     /**
      * Retrieves a patient by their ID.
+     * <p>
+     * On a cache miss, the lookup goes through the {@link PatientLookupCoalescer}: concurrent lookups are
+     * answered by a single query, run in its own read-only transaction, so no transaction is opened here.
+     * </p>
      *
      * @param id the ID of the patient to retrieve.
      * @return an {@link Optional} containing the {@link Patient} object if found, or empty if not.
      */
+    @Cacheable(cacheNames = CacheConfig.PATIENTS_CACHE, key = "#id", unless = "#result == null")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Patient> getPatientById(Long id) {
-        return patientRepository.findById(id);
+        return patientLookupCoalescer.findById(id);
+    }
+
+    /**
+     * Retrieves several patients by their IDs.
+     * <p>
+     * Patients found in the {@value CacheConfig#PATIENTS_CACHE} cache are not read again; the others are
+     * loaded from the primary with a single {@code IN} query and added to the cache. As for {@link #getPatientById(Long)},
+     * no transaction is opened when every patient is cached.
+     * </p>
+     *
+     * @param ids the IDs of the patients to retrieve; duplicates are ignored.
+     * @return the patients found, in the order of their first ID in {@code ids}; unknown IDs are skipped.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Patient> getPatientsByIds(Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Cache cache = cacheManager.getCache(CacheConfig.PATIENTS_CACHE);
+        Map<Long, Patient> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Patient cached = cache != null ? cache.get(id, Patient.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Patient> loaded = ReplicaRoutingDataSource.readFromPrimary(() -> patientRepository.findAllById(missing));
+            for (Patient patient : loaded) {
+                found.put(patient.getId(), patient);
+                if (cache != null) {
+                    cache.put(patient.getId(), patient);
+                }
+            }
+        }
+        return distinctIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves the audit trail of a patient, oldest change first. The trail outlives the patient.
+     * <p>
+     * Entries are written in the background and may appear shortly after the change they describe.
+     * </p>
+     *
+     * @param id the ID of the patient.
+     * @return the audit entries of the patient, empty if it never existed.
+     */
+    @Transactional(readOnly = true)
+    public List<PatientAudit> getPatientAudit(Long id) {
+        return patientAuditRepository.findByPatientIdOrderByIdAsc(id);
     }
 
     /**
-     * Deletes a patient by their ID.
+     * Deletes a patient by their ID with a single {@code DELETE} statement, and records a tombstone
+     * in the change feed.
      *
      * @param id the ID of the patient to delete.
+     * @return the number of deleted rows, 0 if no patient has this ID.
      */
-    public void deletePatientById(Long id) {
-        patientRepository.deleteById(id);
+    @CacheEvict(cacheNames = CacheConfig.PATIENTS_CACHE, key = "#id")
+    public int deletePatientById(Long id) {
+        int deleted = patientRepository.deleteRowById(id);
+        if (deleted > 0) {
+            patientChangeService.record(id, PatientChange.Type.DELETE);
+            patientAuditWriter.recordAfterCommit(PatientAuditEntry.of(id, PatientChange.Type.DELETE, Map.of()));
+        }
+        return deleted;
     }
 }
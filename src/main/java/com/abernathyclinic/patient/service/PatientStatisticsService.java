@@ -0,0 +1,274 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Service counting patients by age bracket and gender.
+ * <p>
+ * On MariaDB, triggers on the {@code patients} table keep the number of patients per gender and date of birth
+ * in {@code patient_counts_by_birth_date}, and per gender and year of birth in {@code patient_counts_by_birth_year},
+ * in the transaction of each insert, update and delete, whatever the statement that made it. Ages change every
+ * day, so brackets are not stored: the database sums the counts of whole years of birth falling within a bracket,
+ * and the daily counts of the years split by a bracket bound, for the bounds of the day. This reads a few thousand
+ * rows, whatever the number of patients. On other databases, the counts are computed from the {@code patients}
+ * table.
+ * </p>
+ * <p>
+ * Bulk imports switch the triggers off for their own connection and count each batch with two statements,
+ * see {@link #recordBulkInsert(Supplier)}.
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class PatientStatisticsService {
+
+    static final List<String> CREATE_TABLE_SQL = List.of(
+            "CREATE TABLE IF NOT EXISTS patient_counts_by_birth_date (date_de_naissance DATE NOT NULL, "
+                    + "genre VARCHAR(255) NOT NULL, patient_count BIGINT NOT NULL, "
+                    + "PRIMARY KEY (date_de_naissance, genre))",
+            "CREATE TABLE IF NOT EXISTS patient_counts_by_birth_year (birth_year INT NOT NULL, "
+                    + "genre VARCHAR(255) NOT NULL, patient_count BIGINT NOT NULL, "
+                    + "PRIMARY KEY (birth_year, genre))");
+
+    private static final String DEFER_VARIABLE = "@patient_statistics_deferred";
+
+    private static final String INCREMENT_SQL = "INSERT INTO patient_counts_by_birth_date "
+            + "VALUES (NEW.date_de_naissance, NEW.genre, 1) ON DUPLICATE KEY UPDATE patient_count = patient_count + 1; "
+            + "INSERT INTO patient_counts_by_birth_year "
+            + "VALUES (YEAR(NEW.date_de_naissance), NEW.genre, 1) ON DUPLICATE KEY UPDATE patient_count = patient_count + 1;";
+
+    private static final String DECREMENT_SQL = "UPDATE patient_counts_by_birth_date SET patient_count = patient_count - 1 "
+            + "WHERE date_de_naissance = OLD.date_de_naissance AND genre = OLD.genre; "
+            + "UPDATE patient_counts_by_birth_year SET patient_count = patient_count - 1 "
+            + "WHERE birth_year = YEAR(OLD.date_de_naissance) AND genre = OLD.genre;";
+
+    static final List<String> CREATE_TRIGGER_SQL = List.of(
+            "CREATE TRIGGER IF NOT EXISTS patients_statistics_insert AFTER INSERT ON patients FOR EACH ROW "
+                    + "BEGIN IF " + DEFER_VARIABLE + " IS NULL THEN " + INCREMENT_SQL + " END IF; END",
+            "CREATE TRIGGER IF NOT EXISTS patients_statistics_update AFTER UPDATE ON patients FOR EACH ROW "
+                    + "BEGIN IF OLD.date_de_naissance <> NEW.date_de_naissance OR OLD.genre <> NEW.genre THEN "
+                    + DECREMENT_SQL + " " + INCREMENT_SQL + " END IF; END",
+            "CREATE TRIGGER IF NOT EXISTS patients_statistics_delete AFTER DELETE ON patients FOR EACH ROW "
+                    + "BEGIN " + DECREMENT_SQL + " END");
+
+    private static final String COUNT_TRIGGERS_SQL = "SELECT COUNT(*) FROM information_schema.triggers "
+            + "WHERE trigger_schema = DATABASE() AND trigger_name IN ('patients_statistics_insert', "
+            + "'patients_statistics_update', 'patients_statistics_delete')";
+
+    private static final String BULK_COUNT_SQL = "INSERT INTO %s SELECT %s, genre, COUNT(*) FROM patients "
+            + "WHERE id IN (%s) GROUP BY %2$s, genre "
+            + "ON DUPLICATE KEY UPDATE patient_count = patient_count + VALUES(patient_count)";
+
+    private static final List<String> REBUILD_SQL = List.of(
+            "DELETE FROM patient_counts_by_birth_date",
+            "DELETE FROM patient_counts_by_birth_year",
+            "INSERT INTO patient_counts_by_birth_date SELECT date_de_naissance, genre, COUNT(*) FROM patients "
+                    + "GROUP BY date_de_naissance, genre",
+            "INSERT INTO patient_counts_by_birth_year SELECT YEAR(date_de_naissance), genre, SUM(patient_count) "
+                    + "FROM patient_counts_by_birth_date GROUP BY YEAR(date_de_naissance), genre");
+
+    private static final Logger log = LoggerFactory.getLogger(PatientStatisticsService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int[] ageBounds;
+
+    private volatile boolean maintained;
+
+    /**
+     * Constructs a new {@code PatientStatisticsService}.
+     *
+     * @param jdbcTemplate       the template used to install the triggers and run the aggregations.
+     * @param transactionManager the transaction manager of the initial count.
+     * @param ageBounds          the lowest age of each bracket but the first, in increasing order.
+     */
+    public PatientStatisticsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    @Value("${patient.statistics.age-brackets:30,40,50,60,70}") int[] ageBounds) {
+        if (ageBounds.length == 0) {
+            throw new IllegalArgumentException("At least one age bracket bound is required");
+        }
+        for (int i = 0; i < ageBounds.length; i++) {
+            if (ageBounds[i] <= (i == 0 ? 0 : ageBounds[i - 1])) {
+                throw new IllegalArgumentException("Age brackets must be positive and increasing");
+            }
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ageBounds = ageBounds.clone();
+    }
+
+    /**
+     * Creates the count tables and their triggers on MariaDB, if they do not exist yet.
+     * <p>
+     * When a trigger is missing, for example because the {@code patients} table was recreated, the counts are
+     * rebuilt from the {@code patients} table once every trigger is in place, in one transaction.
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void installTriggers() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"MariaDB".equalsIgnoreCase(database)) {
+            log.info("Patient statistics are computed from the patients table on {}", database);
+            return;
+        }
+        CREATE_TABLE_SQL.forEach(jdbcTemplate::execute);
+        Integer installed = jdbcTemplate.queryForObject(COUNT_TRIGGERS_SQL, Integer.class);
+        if (installed == null || installed < CREATE_TRIGGER_SQL.size()) {
+            // Chaque CREATE TRIGGER valide implicitement la transaction : ils sont créés avant le recomptage
+            CREATE_TRIGGER_SQL.forEach(jdbcTemplate::execute);
+            transactionTemplate.executeWithoutResult(status -> REBUILD_SQL.forEach(jdbcTemplate::update));
+            log.info("Installed the patient statistics triggers and counted the existing patients");
+        }
+        maintained = true;
+    }
+
+    /**
+     * Runs a bulk insert of patients in the current transaction, then counts the inserted patients with one
+     * grouped statement per count table instead of one trigger run per row.
+     * <p>
+     * The insert triggers are switched off for the connection of the transaction while {@code insert} runs.
+     * Without triggers, {@code insert} simply runs.
+     * </p>
+     *
+     * @param insert inserts the patients, on the connection of the current transaction, and returns their IDs.
+     * @return the IDs of the inserted patients.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> recordBulkInsert(Supplier<List<Long>> insert) {
+        if (!maintained) {
+            return insert.get();
+        }
+        List<Long> ids;
+        jdbcTemplate.execute("SET " + DEFER_VARIABLE + " = 1");
+        try {
+            ids = insert.get();
+        } finally {
+            // La connexion retourne au pool : les triggers doivent y être réactivés
+            jdbcTemplate.execute("SET " + DEFER_VARIABLE + " = NULL");
+        }
+        if (!ids.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            Object[] args = ids.toArray();
+            jdbcTemplate.update(BULK_COUNT_SQL.formatted("patient_counts_by_birth_date", "date_de_naissance",
+                    placeholders), args);
+            jdbcTemplate.update(BULK_COUNT_SQL.formatted("patient_counts_by_birth_year", "YEAR(date_de_naissance)",
+                    placeholders), args);
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the patients by age bracket and gender, as of today.
+     *
+     * @return the {@link PatientStatistics}, with every bracket in increasing age.
+     */
+    public PatientStatistics getStatistics() {
+        return getStatistics(LocalDate.now());
+    }
+
+    /**
+     * Counts the patients by age bracket and gender, with ages computed on the given day.
+     *
+     * @param date the day the ages are computed on.
+     * @return the {@link PatientStatistics}, with every bracket in increasing age.
+     */
+    public PatientStatistics getStatistics(LocalDate date) {
+        List<Map<String, Long>> counts = new ArrayList<>();
+        for (int i = 0; i <= ageBounds.length; i++) {
+            counts.add(new TreeMap<>());
+        }
+        List<Object> args = new ArrayList<>();
+        jdbcTemplate.query("SELECT bracket, genre, SUM(patient_count) AS patients FROM ("
+                + (maintained ? countsSql(date, args) : patientsSql(date, args)) + ") s GROUP BY bracket, genre", rs -> {
+            counts.get(rs.getInt("bracket")).put(rs.getString("genre"), rs.getLong("patients"));
+        }, args.toArray());
+        List<PatientStatistics.AgeBracket> brackets = new ArrayList<>(counts.size());
+        long total = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            int minAge = i == 0 ? 0 : ageBounds[i - 1];
+            Integer maxAge = i < ageBounds.length ? ageBounds[i] - 1 : null;
+            long bracketTotal = counts.get(i).values().stream().mapToLong(Long::longValue).sum();
+            brackets.add(new PatientStatistics.AgeBracket(maxAge == null ? minAge + "+" : minAge + "-" + maxAge,
+                    minAge, maxAge, bracketTotal, counts.get(i)));
+            total += bracketTotal;
+        }
+        return new PatientStatistics(date, total, brackets);
+    }
+
+    /**
+     * Builds the query reading the bracket of each count row: the years of birth entirely within a bracket from
+     * the yearly counts, and the years holding the birthday starting a bracket from the daily counts.
+     */
+    private String countsSql(LocalDate date, List<Object> args) {
+        StringBuilder yearBracket = new StringBuilder("CASE");
+        StringJoiner splitYears = new StringJoiner(", ", "(", ")");
+        StringJoiner splitDays = new StringJoiner(" OR ", "(", ")");
+        List<Object> splitYearArgs = new ArrayList<>();
+        List<Object> splitDayArgs = new ArrayList<>();
+        for (int i = 0; i < ageBounds.length; i++) {
+            // Année entièrement après celle des bornes[i] ans : tous âgés de moins de bornes[i] ans
+            int year = date.minusYears(ageBounds[i]).getYear();
+            yearBracket.append(" WHEN birth_year > ? THEN ").append(i);
+            args.add(year);
+            splitYears.add("?");
+            splitYearArgs.add(year);
+            splitDays.add("date_de_naissance BETWEEN ? AND ?");
+            splitDayArgs.add(Date.valueOf(LocalDate.of(year, 1, 1)));
+            splitDayArgs.add(Date.valueOf(LocalDate.of(year, 12, 31)));
+        }
+        yearBracket.append(" ELSE ").append(ageBounds.length).append(" END");
+        args.addAll(splitYearArgs);
+        String yearly = "SELECT " + yearBracket + " AS bracket, genre, patient_count FROM patient_counts_by_birth_year "
+                + "WHERE patient_count > 0 AND birth_year NOT IN " + splitYears;
+        String daily = "SELECT " + dateBracket(date, args) + " AS bracket, genre, patient_count "
+                + "FROM patient_counts_by_birth_date WHERE patient_count > 0 AND " + splitDays;
+        args.addAll(splitDayArgs);
+        return yearly + " UNION ALL " + daily;
+    }
+
+    /**
+     * Builds the query reading the bracket of every patient, when no count is maintained.
+     */
+    private String patientsSql(LocalDate date, List<Object> args) {
+        return "SELECT " + dateBracket(date, args) + " AS bracket, genre, 1 AS patient_count FROM patients";
+    }
+
+    /**
+     * Builds the expression of the bracket of {@code date_de_naissance}: born after the day of their
+     * {@code ageBounds[i]}th birthday, a patient is in bracket {@code i} or a younger one.
+     */
+    private String dateBracket(LocalDate date, List<Object> args) {
+        StringBuilder bracket = new StringBuilder("CASE");
+        for (int i = 0; i < ageBounds.length; i++) {
+            bracket.append(" WHEN date_de_naissance > ? THEN ").append(i);
+            args.add(Date.valueOf(date.minusYears(ageBounds[i])));
+        }
+        return bracket.append(" ELSE ").append(ageBounds.length).append(" END").toString();
+    }
+}
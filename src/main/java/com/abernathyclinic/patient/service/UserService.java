@@ -0,0 +1,96 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * Service loading the users allowed to log in with a password.
+ * <p>
+ * Users are kept in a bounded cache for {@code security.users.cache.ttl} after being loaded, so repeated
+ * logins do not query the database. A user is evicted from the cache when its password is changed through
+ * this service; changes made directly in the database are seen once the cached entry expires.
+ * </p>
+ * <p>
+ * As a {@link UserDetailsPasswordService}, this service also stores the new hash of a password that the
+ * authentication provider rehashed on login.
+ * </p>
+ */
+@Service
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, User> users;
+
+    /**
+     * Constructs a new {@code UserService}.
+     *
+     * @param userRepository the repository of users.
+     * @param cacheMaxSize   the maximum number of cached users.
+     * @param cacheTtl       how long a loaded user is cached.
+     */
+    public UserService(UserRepository userRepository,
+                       @Value("${security.users.cache.max-size:1000}") long cacheMaxSize,
+                       @Value("${security.users.cache.ttl:PT5M}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Loads a user by username, from the cache when possible.
+     *
+     * @param username the username of the user.
+     * @return the {@link User}.
+     * @throws UsernameNotFoundException if no user has this username.
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        User user = users.getIfPresent(username);
+        if (user == null) {
+            user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            users.put(username, user);
+        }
+        return user;
+    }
+
+    /**
+     * Stores a new password hash for a user and evicts the user from the cache.
+     *
+     * @param user        the user whose password changed.
+     * @param newPassword the new password hash.
+     * @return the updated user.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User updated = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        updated.setPassword(newPassword);
+        evict(user.getUsername());
+        return userRepository.save(updated);
+    }
+
+    /**
+     * Evicts a user from the cache, so that its next login reads it from the database.
+     *
+     * @param username the username of the user.
+     */
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+}
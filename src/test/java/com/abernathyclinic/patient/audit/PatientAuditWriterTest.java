@@ -0,0 +1,114 @@
+package com.abernathyclinic.patient.audit;
+
+import com.abernathyclinic.patient.model.PatientChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientAuditWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testStopWritesEveryQueuedEntry() {
+        List<Object[]> written = captureRows();
+        PatientAuditWriter writer = newWriter(1000);
+
+        writer.start();
+        for (long id = 1; id <= 250; id++) {
+            writer.record(entry(id));
+        }
+        writer.stop();
+
+        assertFalse(writer.isRunning());
+        assertEquals(250, written.size());
+        assertEquals(List.of(1L, "UPDATE", "admin"), List.of(written.get(0)).subList(0, 3));
+        assertEquals("{\"nom\":{\"old\":\"TestNone\",\"new\":\"TestBorderline\"}}", written.get(0)[4]);
+    }
+
+    @Test
+    void testRecordWritesSynchronouslyWhenStopped() {
+        List<Object[]> written = captureRows();
+        PatientAuditWriter writer = newWriter(1);
+
+        writer.record(entry(1L));
+
+        assertEquals(1, written.size());
+        verify(jdbcTemplate).batchUpdate(eq(PatientAuditWriter.INSERT_SQL), anyList());
+    }
+
+    @Test
+    void testRecordAfterCommitOutsideTransaction() {
+        List<Object[]> written = captureRows();
+        PatientAuditWriter writer = newWriter(10);
+
+        writer.recordAfterCommit(List.of(entry(1L), entry(2L)));
+
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void testRecordAfterCommitWhenStoppedCommitsWithoutAutoCommit() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:mem:audit-writer;DB_CLOSE_DELAY=-1");
+            dataSource.setAutoCommit(false);
+            JdbcTemplate database = new JdbcTemplate(dataSource);
+            TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            transaction.executeWithoutResult(status -> database.execute("CREATE TABLE patient_audit "
+                    + "(patient_id BIGINT, action VARCHAR(16), modified_by VARCHAR(255), modified_at TIMESTAMP, "
+                    + "changes VARCHAR(4000))"));
+            PatientAuditWriter writer = new PatientAuditWriter(database, transaction.getTransactionManager(),
+                    new ObjectMapper(), new SimpleMeterRegistry(), 10, 100, Duration.ofMillis(100), Duration.ofMillis(10));
+
+            // Écrit de manière synchrone dans afterCommit, la transaction métier étant encore liée au thread
+            transaction.executeWithoutResult(status -> writer.recordAfterCommit(entry(1L)));
+
+            Integer audited = transaction.execute(status ->
+                    database.queryForObject("SELECT COUNT(*) FROM patient_audit", Integer.class));
+            assertEquals(1, audited);
+        }
+    }
+
+    private PatientAuditWriter newWriter(int capacity) {
+        return new PatientAuditWriter(jdbcTemplate, transactionManager, new ObjectMapper(), new SimpleMeterRegistry(),
+                capacity, 100, Duration.ofMillis(100), Duration.ofMillis(10));
+    }
+
+    private List<Object[]> captureRows() {
+        List<Object[]> written = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(PatientAuditWriter.INSERT_SQL), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            written.addAll(rows);
+            return new int[rows.size()];
+        });
+        return written;
+    }
+
+    private static PatientAuditEntry entry(long patientId) {
+        return new PatientAuditEntry(patientId, PatientChange.Type.UPDATE, "admin", Instant.now(),
+                Map.of("nom", PatientAuditEntry.change("TestNone", "TestBorderline")));
+    }
+}
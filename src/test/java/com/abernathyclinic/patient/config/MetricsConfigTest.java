@@ -0,0 +1,41 @@
+package com.abernathyclinic.patient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsConfigTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExtendMessageConverters_TimesJsonBodies() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringHttpMessageConverter stringConverter = new StringHttpMessageConverter();
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(stringConverter,
+                new MappingJackson2HttpMessageConverter(objectMapper)));
+
+        new MetricsConfig(meterRegistry).extendMessageConverters(converters);
+        MappingJackson2HttpMessageConverter json = (MappingJackson2HttpMessageConverter) converters.get(1);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        ((HttpMessageConverter<Object>) (HttpMessageConverter<?>) json).write(List.of(Map.of("id", 1)),
+                MediaType.APPLICATION_JSON, output);
+
+        assertSame(stringConverter, converters.get(0));
+        assertSame(objectMapper, json.getObjectMapper());
+        assertEquals("[{\"id\":1}]", output.getBodyAsString());
+        assertEquals(1, meterRegistry.get(MetricsConfig.SERIALIZATION_TIMER)
+                .tag("format", "json").tag("type", "List").timer().count());
+    }
+}
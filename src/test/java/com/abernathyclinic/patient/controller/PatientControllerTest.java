@@ -0,0 +1,65 @@
+package com.abernathyclinic.patient.controller;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.service.PatientExportService;
+import com.abernathyclinic.patient.service.PatientImportService;
+import com.abernathyclinic.patient.service.PatientService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientControllerTest {
+
+    @Mock
+    private PatientService patientService;
+
+    @Mock
+    private PatientImportService patientImportService;
+
+    @Mock
+    private PatientExportService patientExportService;
+
+    private PatientController patientController;
+
+    @BeforeEach
+    void setUp() {
+        patientController = new PatientController(patientService, patientImportService, patientExportService,
+                new ObjectMapper());
+    }
+
+    @Test
+    void testGetAllPatients_PastLastPageIsEmpty() {
+        when(patientService.getPatientsAfter(42L, 10)).thenReturn(List.of());
+
+        ResponseEntity<List<Patient>> response = patientController.getAllPatients(42L, 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(), response.getBody());
+        assertFalse(response.getHeaders().containsKey(PatientController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testPatchPatient_ReturnsNewVersionAsETag() {
+        when(patientService.patchPatient(1L, Map.of("telephone", "555"), 3L)).thenReturn(Optional.of(4L));
+        when(patientService.patchPatient(2L, Map.of("telephone", "555"), null)).thenReturn(Optional.empty());
+
+        ResponseEntity<Void> response = patientController.patchPatient(1L, "\"3\"", Map.of("telephone", "555"));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_FOUND, patientController.patchPatient(2L, null, Map.of("telephone", "555")).getStatusCode());
+    }
+}
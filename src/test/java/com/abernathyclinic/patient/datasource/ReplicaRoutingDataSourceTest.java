@@ -0,0 +1,177 @@
+package com.abernathyclinic.patient.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SHOW SLAVE STATUS";
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private ReplicaLagMonitor lagMonitor;
+
+    private DataSource dataSource;
+
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+        lagMonitor = new ReplicaLagMonitor(replicaJdbcTemplate, LAG_QUERY, Duration.ofSeconds(2), new SimpleMeterRegistry());
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1), 100);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(new ReplicaRoutingDataSource(primary, replica, lagMonitor, tracker, new SimpleMeterRegistry()));
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        proxy.afterPropertiesSet();
+        dataSource = proxy;
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(tracker);
+        replicaLag(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransactionGoesToReplica() {
+        assertSame(replicaConnection, connectionIn(readOnly()));
+        assertSame(primaryConnection, connectionIn(readWrite()));
+    }
+
+    @Test
+    void testStatementOutsideTransactionGoesToPrimary() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertSame(primaryConnection, ((ConnectionProxy) connection).getTargetConnection());
+        }
+    }
+
+    @Test
+    void testReadFromPrimaryInReadOnlyTransaction() {
+        Connection connection = ReplicaRoutingDataSource.readFromPrimary(() -> connectionIn(readOnly()));
+
+        assertSame(primaryConnection, connection);
+        assertSame(replicaConnection, connectionIn(readOnly()));
+    }
+
+    @Test
+    void testLaggingReplicaIsNotRead() {
+        replicaLag(3L);
+        assertSame(primaryConnection, connectionIn(readOnly()));
+
+        replicaLag(2L);
+        assertSame(replicaConnection, connectionIn(readOnly()));
+    }
+
+    @Test
+    void testStoppedOrUnreachableReplicaIsNotRead() {
+        replicaLag(null);
+        assertSame(primaryConnection, connectionIn(readOnly()));
+
+        when(replicaJdbcTemplate.queryForList(LAG_QUERY)).thenThrow(new DataAccessResourceFailureException("down"));
+        lagMonitor.checkLag();
+        assertSame(primaryConnection, connectionIn(readOnly()));
+    }
+
+    @Test
+    void testStandaloneReplicaIsReadWithoutLag() {
+        replicaLag(3L);
+        when(replicaJdbcTemplate.queryForList(LAG_QUERY)).thenReturn(List.of());
+        lagMonitor.checkLag();
+
+        assertTrue(lagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    void testUserReadsTheirOwnWritesFromPrimary() {
+        authenticate("alice");
+        connectionIn(readWrite());
+
+        assertSame(primaryConnection, connectionIn(readOnly()));
+        authenticate("bob");
+        assertSame(replicaConnection, connectionIn(readOnly()));
+    }
+
+    @Test
+    void testRolledBackWriteIsNotSticky() {
+        authenticate("alice");
+        readWrite().executeWithoutResult(status -> {
+            targetConnection();
+            status.setRollbackOnly();
+        });
+
+        assertSame(replicaConnection, connectionIn(readOnly()));
+    }
+
+    private void replicaLag(Long seconds) {
+        when(replicaJdbcTemplate.queryForList(LAG_QUERY))
+                .thenReturn(List.of(Collections.singletonMap(ReplicaLagMonitor.LAG_COLUMN, seconds)));
+        lagMonitor.checkLag();
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private TransactionTemplate readWrite() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private Connection connectionIn(TransactionTemplate template) {
+        return template.execute(status -> targetConnection());
+    }
+
+    private Connection targetConnection() {
+        // Le proxy n'ouvre la connexion réelle qu'à la première utilisation
+        return ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection();
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
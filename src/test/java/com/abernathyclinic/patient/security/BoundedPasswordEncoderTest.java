@@ -0,0 +1,65 @@
+package com.abernathyclinic.patient.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void testMatches_RefusedAtOnceWhenQueueIsFull() throws Exception {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(10))) {
+            occupyThread(encoder);
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("queued", "hash"));
+            while (encoder.getExecutor().getQueue().isEmpty()) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(AuthenticationServiceException.class, () -> encoder.matches("refused", "hash"));
+
+            release.countDown();
+            assertFalse(queued.get(10, TimeUnit.SECONDS));
+            verify(delegate).matches("queued", "hash");
+            verify(delegate, never()).matches("refused", "hash");
+        }
+    }
+
+    @Test
+    void testMatches_RefusedAndDequeuedAfterTimeout() throws Exception {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofMillis(200))) {
+            occupyThread(encoder);
+
+            // En file derrière le hachage en cours : refusée après le délai, sans attendre qu'il se termine
+            assertThrows(AuthenticationServiceException.class, () -> encoder.matches("queued", "hash"));
+
+            assertTrue(encoder.getExecutor().getQueue().isEmpty());
+            release.countDown();
+            verify(delegate, never()).matches("queued", "hash");
+        }
+    }
+
+    private void occupyThread(BoundedPasswordEncoder encoder) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        encoder.getExecutor().execute(() -> {
+            running.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,82 @@
+package com.abernathyclinic.patient.security;
+
+import com.abernathyclinic.patient.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(jwtService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testDoFilter_RecordsVerificationOutcomes() throws Exception {
+        when(jwtService.verify("valid")).thenReturn(Optional.of(
+                new JwtPrincipal("organizer_user", List.of("Organizer"), Instant.now().plusSeconds(3600))));
+        when(jwtService.verify("tampered")).thenReturn(Optional.empty());
+
+        filter.doFilter(bearer("valid"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(bearer("tampered"), rejected, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/patients"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertEquals(1, verifications("valid"));
+        assertEquals(1, verifications("invalid"));
+        assertEquals(401, rejected.getStatus());
+    }
+
+    private long verifications(String outcome) {
+        return meterRegistry.get(JwtAuthenticationFilter.VERIFICATION_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    @Test
+    void testSetAuthenticated_OnlyRevokes() {
+        JwtAuthentication authentication = new JwtAuthentication(
+                new JwtPrincipal("organizer_user", List.of("Organizer"), Instant.now().plusSeconds(3600)));
+
+        authentication.setAuthenticated(false);
+
+        assertFalse(authentication.isAuthenticated());
+        assertThrows(IllegalArgumentException.class, () -> authentication.setAuthenticated(true));
+        assertFalse(authentication.isAuthenticated());
+    }
+}
@@ -0,0 +1,65 @@
+package com.abernathyclinic.patient.security;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.repository.UserRepository;
+import com.abernathyclinic.patient.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityConfigTest {
+
+    @Mock
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void testAuthenticate_RehashesWeakPasswordAndEvictsUser() {
+        AtomicReference<String> storedHash = new AtomicReference<>(new BCryptPasswordEncoder(4).encode("password1"));
+        when(userRepository.findByUsername("organizer_user")).thenAnswer(invocation ->
+                Optional.of(new User(1L, "organizer_user", storedHash.get(), "Organizer")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            storedHash.set(user.getPassword());
+            return user;
+        });
+        SecurityConfig securityConfig = new SecurityConfig(jwtAuthenticationFilter);
+        UserService userService = new UserService(userRepository, 100, Duration.ofMinutes(5));
+        try (BoundedPasswordEncoder passwordEncoder =
+                     securityConfig.passwordEncoder(5, 1, 10, Duration.ofSeconds(10), new SimpleMeterRegistry())) {
+            AuthenticationManager authenticationManager =
+                    securityConfig.authenticationManager(userService, passwordEncoder);
+
+            // Première connexion : le hash de coût 4 est remplacé par un hash au coût configuré
+            assertTrue(authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken("organizer_user", "password1")).isAuthenticated());
+            ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+            verify(userRepository).save(saved.capture());
+            assertTrue(saved.getValue().getPassword().startsWith("$2a$05$"));
+
+            // L'utilisateur a été retiré du cache : la connexion suivante relit le nouveau hash sans rehacher
+            assertTrue(authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken("organizer_user", "password1")).isAuthenticated());
+            assertEquals(storedHash.get(), ((User) userService.loadUserByUsername("organizer_user")).getPassword());
+            verify(userRepository, times(1)).save(any(User.class));
+            verify(userRepository, times(3)).findByUsername("organizer_user");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.abernathyclinic.patient.security;
+
+import com.abernathyclinic.patient.controller.PatientController;
+import com.abernathyclinic.patient.service.JwtService;
+import com.abernathyclinic.patient.service.PatientExportService;
+import com.abernathyclinic.patient.service.PatientImportService;
+import com.abernathyclinic.patient.service.PatientService;
+import com.abernathyclinic.patient.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends requests through the security filter chain of {@link SecurityConfig}, with verified tokens of various roles.
+ */
+@WebMvcTest(controllers = PatientController.class, properties = {
+        "logging.level.root=INFO",
+        "logging.level.org.springframework=INFO"
+})
+@Import({SecurityConfig.class, SecurityFilterChainTest.MetricsConfig.class})
+class SecurityFilterChainTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private PatientService patientService;
+
+    @MockBean
+    private PatientImportService patientImportService;
+
+    @MockBean
+    private PatientExportService patientExportService;
+
+    @Test
+    void testGetPatients_RequiresOrganizerRole() throws Exception {
+        when(jwtService.verify("organizer")).thenReturn(Optional.of(
+                new JwtPrincipal("organizer_user", List.of("Organizer"), Instant.now().plusSeconds(3600))));
+        when(jwtService.verify("practitioner")).thenReturn(Optional.of(
+                new JwtPrincipal("practitioner_user", List.of("Practitioner"), Instant.now().plusSeconds(3600))));
+        when(patientService.getPatientsAfter(null, 100)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/patients").header("Authorization", "Bearer organizer"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/patients").header("Authorization", "Bearer practitioner"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/patients/1").header("Authorization", "Bearer practitioner"))
+                .andExpect(status().isForbidden());
+        verify(patientService, times(1)).getPatientsAfter(null, 100);
+        verifyNoMoreInteractions(patientService);
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.security.JwtPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET_KEY = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        jwtService.setSecretKey(SECRET_KEY);
+        jwtService.setJwtExpiration(TimeUnit.HOURS.toMillis(1));
+        token = jwtService.generateToken(Map.of("roles", List.of("Organizer")),
+                new User(1L, "organizer_user", "password1", "Organizer"));
+    }
+
+    @Test
+    void testVerify_ValidToken() {
+        Optional<JwtPrincipal> principal = jwtService.verify(token);
+
+        assertTrue(principal.isPresent());
+        assertEquals("organizer_user", principal.get().username());
+        assertEquals(List.of("Organizer"), principal.get().roles());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_Organizer")), principal.get().authorities());
+        assertSame(principal.get().authorities(), new User(2L, "other_user", "password2", "Organizer").getAuthorities());
+        assertTrue(jwtService.isPlausible(token));
+    }
+
+    @Test
+    void testIsPlausible_RejectsFromHeaderAndPayload() {
+        String header = token.substring(0, token.indexOf('.'));
+        String payload = token.substring(token.indexOf('.') + 1, token.lastIndexOf('.'));
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        long past = Instant.now().getEpochSecond() - 3600;
+
+        assertFalse(jwtService.isPlausible("not-a-token"));
+        assertFalse(jwtService.isPlausible(header + "." + payload + "."));
+        assertFalse(jwtService.isPlausible(header + "." + payload + "." + signature + ".x"));
+        assertFalse(jwtService.isPlausible(encode("{\"alg\":\"none\"}") + "." + payload + "." + signature));
+        assertFalse(jwtService.isPlausible(header + "." + encode("{\"sub\":\"organizer_user\"}") + "." + signature));
+        assertFalse(jwtService.isPlausible(header + "." + encode("{\"exp\":" + past + "}") + "." + signature));
+        assertFalse(jwtService.isPlausible(header + ".%%%." + signature));
+    }
+
+    @Test
+    void testVerify_RejectsForgedSignature() {
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + encode("forged");
+
+        assertTrue(jwtService.isPlausible(forged));
+        assertTrue(jwtService.verify(forged).isEmpty());
+        assertTrue(jwtService.verify(forged).isEmpty());
+        assertTrue(jwtService.verify(token).isPresent());
+    }
+
+    @Test
+    void testVerify_CachedUntilTokenExpires() throws InterruptedException {
+        Optional<JwtPrincipal> first = jwtService.verify(token);
+
+        assertSame(first.orElseThrow(), jwtService.verify(token).orElseThrow());
+
+        jwtService.setJwtExpiration(1000);
+        String shortLived = jwtService.generateToken(new User(1L, "organizer_user", "password1", "Organizer"));
+        Instant expiresAt = jwtService.verify(shortLived).orElseThrow().expiresAt();
+        while (!Instant.now().isAfter(expiresAt)) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(jwtService.verify(shortLived).isEmpty());
+    }
+
+    @Test
+    void testVerify_RejectsTamperedPayload() {
+        String header = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        long future = Instant.now().getEpochSecond() + 3600;
+        String tampered = header + "." + encode("{\"roles\":[\"Admin\"],\"sub\":\"organizer_user\",\"exp\":" + future + "}")
+                + "." + signature;
+
+        assertTrue(jwtService.isPlausible(tampered));
+        assertTrue(jwtService.verify(tampered).isEmpty());
+        assertEquals(List.of("Organizer"), jwtService.verify(token).orElseThrow().roles());
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
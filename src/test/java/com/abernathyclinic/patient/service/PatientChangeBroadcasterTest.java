@@ -0,0 +1,50 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import com.abernathyclinic.patient.model.PatientChange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientChangeBroadcasterTest {
+
+    @Mock
+    private PatientChangeService patientChangeService;
+
+    @Test
+    void testLaggingSubscriberDoesNotHoldBackCaughtUpOnes() {
+        // 100 changes déjà enregistrées : chaque lecture rend au plus 10 changements après le jeton
+        when(patientChangeService.getChanges(anyLong(), eq(10))).thenAnswer(invocation -> {
+            long since = invocation.getArgument(0);
+            long last = Math.min(since + 10, 100);
+            List<PatientChangeFeed.Change> changes = new ArrayList<>();
+            for (long seq = since + 1; seq <= last; seq++) {
+                changes.add(new PatientChangeFeed.Change(seq, PatientChange.Type.DELETE, seq, Instant.now(), null));
+            }
+            return Optional.of(new PatientChangeFeed(changes, last));
+        });
+        PatientChangeBroadcaster broadcaster = new PatientChangeBroadcaster(patientChangeService, 10, 60_000);
+        broadcaster.subscribe(95);
+        broadcaster.subscribe(95);
+        broadcaster.subscribe(0);
+
+        broadcaster.poll();
+        broadcaster.poll();
+
+        verify(patientChangeService, times(1)).getChanges(95, 10);
+        verify(patientChangeService, times(1)).getChanges(100, 10);
+        verify(patientChangeService, times(1)).getChanges(0, 10);
+        verify(patientChangeService, times(1)).getChanges(10, 10);
+        verifyNoMoreInteractions(patientChangeService);
+    }
+}
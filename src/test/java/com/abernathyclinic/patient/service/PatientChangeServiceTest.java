@@ -0,0 +1,91 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
+import com.abernathyclinic.patient.repository.PatientChangeRepository;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientChangeServiceTest {
+
+    @Mock
+    private PatientChangeRepository patientChangeRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientChangeService patientChangeService;
+
+    @BeforeEach
+    void setUp() {
+        patientChangeService = new PatientChangeService(patientChangeRepository, patientRepository, jdbcTemplate,
+                transactionManager, 10000, Duration.ofDays(7));
+    }
+
+    @Test
+    void testGetChanges_KeepsLatestChangePerPatient() {
+        Instant now = Instant.now();
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 1L);
+
+        when(patientChangeRepository.findByPositionGreaterThanOrderByPositionAsc(10L, Limit.of(100))).thenReturn(List.of(
+                new PatientChange(111L, 1L, PatientChange.Type.INSERT, now, 11L),
+                new PatientChange(112L, 2L, PatientChange.Type.INSERT, now, 12L),
+                new PatientChange(113L, 1L, PatientChange.Type.UPDATE, now, 13L),
+                new PatientChange(114L, 2L, PatientChange.Type.DELETE, now, 14L)
+        ));
+        when(patientRepository.findAllById(List.of(1L))).thenReturn(List.of(patient));
+
+        PatientChangeFeed feed = patientChangeService.getChanges(10L, 100).orElseThrow();
+
+        assertEquals(14L, feed.nextToken());
+        assertEquals(List.of(
+                new PatientChangeFeed.Change(13L, PatientChange.Type.UPDATE, 1L, now, patient),
+                new PatientChangeFeed.Change(14L, PatientChange.Type.DELETE, 2L, now, null)
+        ), feed.changes());
+    }
+
+    @Test
+    void testGetChanges_NoNewChange() {
+        when(patientChangeRepository.findByPositionGreaterThanOrderByPositionAsc(14L, Limit.of(100))).thenReturn(List.of());
+
+        PatientChangeFeed feed = patientChangeService.getChanges(14L, 100).orElseThrow();
+
+        assertTrue(feed.changes().isEmpty());
+        assertEquals(14L, feed.nextToken());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void testGetChanges_TokenBeforeCompactedTombstone() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(20L));
+
+        assertTrue(patientChangeService.getChanges(14L, 100).isEmpty());
+        assertTrue(patientChangeService.getChanges(20L, 100).isPresent());
+        assertTrue(patientChangeService.getChanges(0L, 100).isPresent());
+        verify(patientChangeRepository, never()).findByPositionGreaterThanOrderByPositionAsc(eq(14L), any());
+    }
+}
@@ -0,0 +1,149 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientChangeFeed;
+import com.abernathyclinic.patient.model.PatientChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the change feed of an embedded H2 database while the transactions recording changes overlap.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.root=INFO",
+        "logging.level.org.springframework=INFO",
+        "spring.jpa.show-sql=false"
+})
+@Import(PatientChangeService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientChangeServiceTransactionTest {
+
+    @Autowired
+    private PatientChangeService patientChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM patient_changes");
+        jdbcTemplate.update("DELETE FROM patient_change_feed_state");
+        jdbcTemplate.update("DELETE FROM patients");
+    }
+
+    @Test
+    void testChangeCommittedAfterLaterChangeIsPublishedAfterIt() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        // Transaction longue, comme un batch d'import : obtient la première séquence mais valide après la suivante
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            patientChangeService.record(1L, PatientChange.Type.UPDATE);
+            recorded.countDown();
+            try {
+                assertTrue(commit.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+        transaction.executeWithoutResult(status -> patientChangeService.record(2L, PatientChange.Type.UPDATE));
+
+        patientChangeService.publish();
+        patientChangeService.publish();
+        PatientChangeFeed beforeCommit = patientChangeService.getChanges(0, 100).orElseThrow();
+        commit.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        patientChangeService.publish();
+        PatientChangeFeed afterCommit = patientChangeService.getChanges(beforeCommit.nextToken(), 100).orElseThrow();
+
+        assertEquals(List.of(2L), beforeCommit.changes().stream().map(PatientChangeFeed.Change::patientId).toList());
+        assertEquals(List.of(1L), afterCommit.changes().stream().map(PatientChangeFeed.Change::patientId).toList());
+        assertTrue(afterCommit.nextToken() > beforeCommit.nextToken());
+    }
+
+    @Test
+    void testRecordInsertsOfImportedRange() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO patients (nom, prenom, date_de_naissance, genre, created_at) VALUES "
+                    + "('TestNone', 'Test', DATE '1966-12-31', 'F', CURRENT_DATE), "
+                    + "('TestBorderline', 'Test', DATE '1945-06-24', 'M', CURRENT_DATE)");
+            long firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM patients WHERE nom = 'TestNone'", Long.class);
+            patientChangeService.recordInserts(List.of(firstId, firstId + 1));
+            assertEquals(List.of(firstId, firstId + 1), jdbcTemplate.queryForList(
+                    "SELECT patient_id FROM patient_changes WHERE change_type = 'INSERT' AND patient_id >= ? "
+                            + "ORDER BY seq", Long.class, firstId));
+            // Plage plus longue que l'insertion : ce n'est pas celle de la requête, la transaction doit être annulée
+            assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class,
+                    () -> patientChangeService.recordInserts(List.of(firstId, firstId + 1, firstId + 2)));
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void testPatientsCreatedBeforeFeedAreBackfilledOnce() {
+        jdbcTemplate.update("INSERT INTO patients (nom, prenom, date_de_naissance, genre, created_at) VALUES "
+                + "('TestNone', 'Test', DATE '1966-12-31', 'F', CURRENT_DATE), "
+                + "('TestBorderline', 'Test', DATE '1945-06-24', 'M', CURRENT_DATE), "
+                + "('TestInDanger', 'Test', DATE '2004-06-18', 'M', CURRENT_DATE)");
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM patients ORDER BY id", Long.class);
+        // Modifié avant la reprise : il figure déjà dans le flux
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> patientChangeService.record(ids.get(1), PatientChange.Type.UPDATE));
+
+        patientChangeService.publish();
+        patientChangeService.publish();
+
+        PatientChangeFeed feed = patientChangeService.getChanges(0, 100).orElseThrow();
+        assertEquals(List.of(ids.get(1), ids.get(0), ids.get(2)),
+                feed.changes().stream().map(PatientChangeFeed.Change::patientId).toList());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patient_changes", Integer.class));
+    }
+
+    @Test
+    void testCompactionExpiresTokensBeforeCompactedTombstone() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> patientChangeService.record(901L, PatientChange.Type.INSERT));
+        transaction.executeWithoutResult(status -> patientChangeService.record(902L, PatientChange.Type.INSERT));
+        transaction.executeWithoutResult(status -> patientChangeService.record(901L, PatientChange.Type.UPDATE));
+        transaction.executeWithoutResult(status -> patientChangeService.record(902L, PatientChange.Type.DELETE));
+        patientChangeService.publish();
+        long afterFirst = patientChangeService.getChanges(0, 1).orElseThrow().nextToken();
+        long afterAll = patientChangeService.getChanges(0, 100).orElseThrow().nextToken();
+        jdbcTemplate.update("UPDATE patient_changes SET changed_at = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(8))));
+
+        patientChangeService.compact();
+
+        // Seule la dernière modification du patient encore existant est conservée
+        assertEquals(List.of("UPDATE"),
+                jdbcTemplate.queryForList("SELECT change_type FROM patient_changes", String.class));
+        assertTrue(patientChangeService.getChanges(afterFirst, 100).isEmpty());
+        assertTrue(patientChangeService.getChanges(afterAll, 100).isPresent());
+        assertEquals(List.of(901L), patientChangeService.getChanges(0, 100).orElseThrow().changes().stream()
+                .map(PatientChangeFeed.Change::patientId).toList());
+    }
+}
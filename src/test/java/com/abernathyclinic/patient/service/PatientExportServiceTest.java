@@ -0,0 +1,178 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientExportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientExportServiceTest {
+
+    private static final List<String[]> PATIENTS = List.of(
+            patient(1, "Martin", "Jean", null),
+            patient(4, "O\"Neil", "Anna", "1 rue de Paris, Lyon"),
+            patient(5, "Durand", "Paul", "12 avenue Foch"),
+            patient(9, "Petit", "Lea", null),
+            patient(12, "Roux", "Marc", "3 place Bellecour"));
+
+    private static final String EXPECTED_CSV = PatientExportService.CSV_HEADER
+            + "1,Martin,Jean,1980-01-02,M,,0102030405,2024-06-01,2024-06-01,admin,0\n"
+            + "4,\"O\"\"Neil\",Anna,1980-01-02,M,\"1 rue de Paris, Lyon\",0102030405,2024-06-01,2024-06-01,admin,0\n"
+            + "5,Durand,Paul,1980-01-02,M,12 avenue Foch,0102030405,2024-06-01,2024-06-01,admin,0\n"
+            + "9,Petit,Lea,1980-01-02,M,,0102030405,2024-06-01,2024-06-01,admin,0\n"
+            + "12,Roux,Marc,1980-01-02,M,3 place Bellecour,0102030405,2024-06-01,2024-06-01,admin,0\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testExport_WritesCsvThroughCursor() throws Exception {
+        PatientExportService service = service(2);
+        Path file = directory.resolve("patients.csv");
+        returnRowsAfterCursor(Integer.MAX_VALUE);
+
+        PatientExportReport report = service.export(file, PatientExportService.Format.CSV);
+
+        assertEquals(EXPECTED_CSV, Files.readString(file));
+        assertEquals(0, report.resumedAfter());
+        assertEquals(5, report.exported());
+        assertEquals(Files.size(file), report.bytes());
+        assertFalse(Files.exists(directory.resolve("patients.csv.checkpoint")));
+        verify(preparedStatement).setFetchSize(50);
+        verify(preparedStatement).setLong(1, 0L);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testExport_ResumesAfterLastCheckpoint() throws Exception {
+        PatientExportService service = service(2);
+        Path file = directory.resolve("patients.csv");
+        returnRowsAfterCursor(3);
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> service.export(file, PatientExportService.Format.CSV));
+        assertEquals("4 " + EXPECTED_CSV.indexOf("5,Durand"),
+                Files.readString(directory.resolve("patients.csv.checkpoint")));
+
+        returnRowsAfterCursor(Integer.MAX_VALUE);
+        PatientExportReport report = service.export(file, PatientExportService.Format.CSV);
+
+        assertEquals(EXPECTED_CSV, Files.readString(file));
+        assertEquals(4, report.resumedAfter());
+        assertEquals(3, report.exported());
+        verify(preparedStatement).setLong(1, 4L);
+    }
+
+    @Test
+    void testExport_ResumedGzipFileReadsAsOneStream() throws Exception {
+        PatientExportService service = service(2);
+        Path file = directory.resolve("patients.csv.gz");
+        returnRowsAfterCursor(3);
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> service.export(file, PatientExportService.Format.CSV_GZIP));
+
+        returnRowsAfterCursor(Integer.MAX_VALUE);
+        service.export(file, PatientExportService.Format.CSV_GZIP);
+
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals(EXPECTED_CSV, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "4", "4 x", "-1 10", "4 0", "4 999999", "4 10 12"})
+    void testExport_RestartsOnInvalidCheckpoint(String checkpoint) throws Exception {
+        PatientExportService service = service(2);
+        Path file = directory.resolve("patients.csv");
+        Files.writeString(file, "partial export left by an earlier run\n");
+        Files.writeString(directory.resolve("patients.csv.checkpoint"), checkpoint);
+        returnRowsAfterCursor(Integer.MAX_VALUE);
+
+        PatientExportReport report = service.export(file, PatientExportService.Format.CSV);
+
+        assertEquals(EXPECTED_CSV, Files.readString(file));
+        assertEquals(0, report.resumedAfter());
+        assertEquals(5, report.exported());
+        assertFalse(Files.exists(directory.resolve("patients.csv.checkpoint")));
+        assertFalse(Files.exists(directory.resolve("patients.csv.checkpoint.tmp")));
+        verify(preparedStatement).setLong(1, 0L);
+    }
+
+    @Test
+    void testFormat_OfExtension() {
+        assertEquals(PatientExportService.Format.CSV_GZIP, PatientExportService.Format.ofExtension("CSV.GZ"));
+        assertThrows(IllegalArgumentException.class, () -> PatientExportService.Format.ofExtension("parquet"));
+    }
+
+    private PatientExportService service(int checkpointRows) {
+        return new PatientExportService(jdbcTemplate, transactionManager, directory, "csv.gz", 50, checkpointRows);
+    }
+
+    /**
+     * Answers the export query with the patients after the cursor position, failing after {@code failAfter} rows.
+     */
+    private void returnRowsAfterCursor(int failAfter) throws Exception {
+        long[] after = new long[1];
+        doAnswer(invocation -> after[0] = invocation.getArgument(1)).when(preparedStatement).setLong(eq(1), anyLong());
+        doAnswer(invocation -> {
+            PreparedStatementSetter statementSetter = invocation.getArgument(1);
+            statementSetter.setValues(preparedStatement);
+            RowCallbackHandler handler = invocation.getArgument(2);
+            int rows = 0;
+            for (String[] patient : PATIENTS) {
+                if (Long.parseLong(patient[0]) <= after[0]) {
+                    continue;
+                }
+                if (rows++ == failAfter) {
+                    throw new DataAccessResourceFailureException("connection lost");
+                }
+                when(resultSet.getLong(1)).thenReturn(Long.parseLong(patient[0]));
+                for (int column = 2; column <= patient.length; column++) {
+                    when(resultSet.getString(column)).thenReturn(patient[column - 1]);
+                }
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(PatientExportService.SELECT_SQL), any(PreparedStatementSetter.class),
+                any(RowCallbackHandler.class));
+    }
+
+    private static String[] patient(long id, String nom, String prenom, String adresse) {
+        return new String[]{String.valueOf(id), nom, prenom, "1980-01-02", "M", adresse, "0102030405",
+                "2024-06-01", "2024-06-01", "admin", "0"};
+    }
+}
@@ -0,0 +1,201 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.audit.PatientAuditEntry;
+import com.abernathyclinic.patient.audit.PatientAuditWriter;
+import com.abernathyclinic.patient.dto.PatientImportReport;
+import com.abernathyclinic.patient.model.Patient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PatientChangeService patientChangeService;
+
+    @Mock
+    private PatientAuditWriter patientAuditWriter;
+
+    @Mock
+    private PatientStatisticsService patientStatisticsService;
+
+    private PatientImportService patientImportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        patientImportService = new PatientImportService(jdbcTemplate, transactionManager, objectMapper, patientChangeService,
+                patientAuditWriter, patientStatisticsService, 2);
+        lenient().when(patientStatisticsService.recordBulkInsert(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<Long>>>getArgument(0).get());
+    }
+
+    @Test
+    void testImportJson() throws Exception {
+        String json = """
+                [
+                  {"nom": "TestNone", "prenom": "Test", "dateDeNaissance": "1966-12-31", "genre": "F"},
+                  {"nom": "TestBorderline", "prenom": "Test", "dateDeNaissance": "1945-06-24", "genre": "M"},
+                  {"nom": "", "prenom": "Test", "dateDeNaissance": "2004-06-18", "genre": "M"},
+                  {"nom": "TestEarlyOnset", "prenom": "Test", "dateDeNaissance": "not-a-date", "genre": "F"},
+                  {"nom": "TestInDanger", "prenom": "Test", "dateDeNaissance": "2004-06-18", "genre": "M"}
+                ]
+                """;
+        List<List<Patient>> batches = captureBatches();
+
+        PatientImportReport report = patientImportService.importJson(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, report.received());
+        assertEquals(3, report.imported());
+        assertEquals(2, report.rejected());
+        assertEquals(List.of(3L, 4L), report.errors().stream().map(PatientImportReport.RowError::row).toList());
+        assertEquals(2, batches.size());
+        assertEquals(List.of("TestNone", "TestBorderline"), batches.get(0).stream().map(Patient::getNom).toList());
+        assertEquals(List.of("TestInDanger"), batches.get(1).stream().map(Patient::getNom).toList());
+        verify(patientChangeService).recordInserts(List.of(1L, 2L));
+        verify(patientChangeService).recordInserts(List.of(3L));
+        verify(patientAuditWriter).recordAfterCommit(argThat((List<PatientAuditEntry> entries) ->
+                entries.stream().map(PatientAuditEntry::patientId).toList().equals(List.of(1L, 2L))
+                        && entries.get(0).changes().get("nom").get("new").equals("TestNone")));
+    }
+
+    @Test
+    void testImportJson_NotAnArray() {
+        assertThrows(IllegalArgumentException.class, () -> patientImportService.importJson(
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        String csv = "nom,prenom,dateDeNaissance,genre,adresse,telephone\n"
+                + "TestNone,Test,1966-12-31,F,\"1 Brookside St, Apt \"\"B\"\"\",100-222-3333\n"
+                + "TestBorderline,Test,1945-06-24,M\n";
+        List<List<Patient>> batches = captureBatches();
+
+        PatientImportReport report = patientImportService.importCsv(new StringReader(csv));
+
+        assertEquals(2, report.received());
+        assertEquals(1, report.imported());
+        assertEquals(1, report.rejected());
+        assertEquals(2L, report.errors().get(0).row());
+        assertEquals("1 Brookside St, Apt \"B\"", batches.get(0).get(0).getAdresse());
+    }
+
+    @Test
+    void testImportJson_RetriesRejectedBatchToIsolateBadRow() throws Exception {
+        PatientImportService service = new PatientImportService(jdbcTemplate, transactionManager,
+                new ObjectMapper().registerModule(new JavaTimeModule()), patientChangeService, patientAuditWriter,
+                patientStatisticsService, 4);
+        String json = """
+                [
+                  {"nom": "TestNone", "prenom": "Test", "dateDeNaissance": "1966-12-31", "genre": "F"},
+                  {"nom": "TestBorderline", "prenom": "Test", "dateDeNaissance": "1945-06-24", "genre": "M"},
+                  {"nom": "TestRejected", "prenom": "Test", "dateDeNaissance": "2004-06-18", "genre": "M"},
+                  {"nom": "TestInDanger", "prenom": "Test", "dateDeNaissance": "2004-06-18", "genre": "M"}
+                ]
+                """;
+        List<List<Patient>> batches = captureBatches();
+
+        PatientImportReport report = service.importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, report.imported());
+        assertEquals(1, report.rejected());
+        assertEquals(List.of(3L), report.errors().stream().map(PatientImportReport.RowError::row).toList());
+        assertTrue(report.errors().get(0).message().contains("Data too long"));
+        assertEquals(List.of(List.of("TestNone", "TestBorderline"), List.of("TestInDanger")),
+                batches.stream().map(batch -> batch.stream().map(Patient::getNom).toList()).toList());
+    }
+
+    @Test
+    void testImportCsv_QuotedFieldSpansLines() throws Exception {
+        String csv = "nom,prenom,dateDeNaissance,genre,adresse\n"
+                + "TestNone,Test,1966-12-31,F,\"1 Brookside St\n\nApt \"\"B\"\"\"\n"
+                + "\n"
+                + "TestBorderline,Test,1945-06-24,M,2 High St\n"
+                + "TestInDanger,Test,2004-06-18,M,\"3 Club Road\n";
+        List<List<Patient>> batches = captureBatches();
+
+        PatientImportReport report = patientImportService.importCsv(new StringReader(csv));
+
+        assertEquals(3, report.received());
+        assertEquals(2, report.imported());
+        assertEquals(List.of(new PatientImportReport.RowError(3, "Unterminated quoted field, import stopped")),
+                report.errors());
+        assertEquals("1 Brookside St\n\nApt \"B\"", batches.get(0).get(0).getAdresse());
+        assertEquals("2 High St", batches.get(0).get(1).getAdresse());
+    }
+
+    /**
+     * Stubs the multi-row insert to capture the patients of each batch, as bound to the statement,
+     * and to return the first ID of a consecutive range, as MariaDB does. A batch holding a patient
+     * named {@code TestRejected} fails as a too long value would.
+     */
+    private List<List<Patient>> captureBatches() {
+        List<List<Patient>> batches = new ArrayList<>();
+        AtomicLong ids = new AtomicLong();
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    PreparedStatementCreator creator = invocation.getArgument(0);
+                    KeyHolder keys = invocation.getArgument(1);
+                    Map<Integer, Object> values = new HashMap<>();
+                    PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                            getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                            (proxy, method, args) -> {
+                                values.put((Integer) args[0], args[1]);
+                                return null;
+                            });
+                    creator.createPreparedStatement((Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class<?>[]{Connection.class}, (proxy, method, args) -> statement));
+                    List<Patient> batch = new ArrayList<>();
+                    for (int column = 0; column < values.size(); column += 9) {
+                        Patient patient = new Patient();
+                        patient.setNom((String) values.get(column + 1));
+                        patient.setPrenom((String) values.get(column + 2));
+                        patient.setAdresse((String) values.get(column + 5));
+                        batch.add(patient);
+                    }
+                    if (batch.stream().anyMatch(patient -> "TestRejected".equals(patient.getNom()))) {
+                        throw new DataIntegrityViolationException("Data too long for column 'nom'");
+                    }
+                    keys.getKeyList().add(Map.of("insert_id", ids.get() + 1));
+                    ids.addAndGet(batch.size());
+                    batches.add(batch);
+                    return batch.size();
+                });
+        return batches;
+    }
+}
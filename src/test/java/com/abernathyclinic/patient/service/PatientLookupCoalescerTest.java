@@ -0,0 +1,106 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientLookupCoalescerTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Test
+    void testConcurrentLookupsShareOneQuery() throws Exception {
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        when(patientRepository.findAllById(anyCollection())).thenReturn(List.of(patient));
+        PatientLookupCoalescer coalescer = new PatientLookupCoalescer(patientRepository, new SimpleMeterRegistry(),
+                Duration.ofMillis(200), 100);
+
+        List<Callable<Optional<Patient>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lookups.add(() -> coalescer.findById(1L));
+        }
+        lookups.add(() -> coalescer.findById(42L));
+        List<Optional<Patient>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Optional<Patient>> result : executor.invokeAll(lookups)) {
+                results.add(result.get());
+            }
+        }
+
+        assertEquals(10, results.stream().filter(result -> result.equals(Optional.of(patient))).count());
+        assertEquals(Optional.empty(), results.get(10));
+        verify(patientRepository, times(1)).findAllById(argThat(ids -> ids.equals(Set.of(1L, 42L))));
+        verify(patientRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFullBatchLoadsImmediately() {
+        when(patientRepository.findById(1L)).thenReturn(Optional.empty());
+        PatientLookupCoalescer coalescer = new PatientLookupCoalescer(patientRepository, new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), 1);
+
+        assertEquals(Optional.empty(), coalescer.findById(1L));
+    }
+
+    @Test
+    void testFailureReachesEveryCaller() {
+        when(patientRepository.findById(1L)).thenThrow(new DataAccessResourceFailureException("down"));
+        PatientLookupCoalescer coalescer = new PatientLookupCoalescer(patientRepository, new SimpleMeterRegistry(),
+                Duration.ofMillis(1), 100);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> coalescer.findById(1L));
+    }
+
+    @Test
+    void testLookupJoinsQueryInFlight() throws Exception {
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(patientRepository.findById(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await();
+            return Optional.of(patient);
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PatientLookupCoalescer coalescer = new PatientLookupCoalescer(patientRepository, meterRegistry,
+                Duration.ZERO, 100);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<Patient>> first = executor.submit(() -> coalescer.findById(1L));
+            queryStarted.await();
+            Future<Optional<Patient>> second = executor.submit(() -> coalescer.findById(1L));
+            while (meterRegistry.counter("patient.lookup.coalesced").count() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals(Optional.of(patient), first.get());
+            assertEquals(Optional.of(patient), second.get());
+        }
+        verify(patientRepository, times(1)).findById(1L);
+        verify(patientRepository, never()).findAllById(any());
+    }
+}
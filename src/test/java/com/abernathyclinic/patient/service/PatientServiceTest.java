@@ -1,16 +1,37 @@
 package com.abernathyclinic.patient.service;
 
+import com.abernathyclinic.patient.audit.PatientAuditEntry;
+import com.abernathyclinic.patient.audit.PatientAuditWriter;
+import com.abernathyclinic.patient.config.CacheConfig;
+import com.abernathyclinic.patient.dto.PatientSearchCriteria;
+import com.abernathyclinic.patient.dto.PatientSearchCursor;
+import com.abernathyclinic.patient.dto.PatientSummary;
 import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.model.PatientChange;
 import com.abernathyclinic.patient.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,12 +42,27 @@ class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PatientChangeService patientChangeService;
+
+    @Mock
+    private PatientAuditWriter patientAuditWriter;
+
+    @Mock
+    private PatientLookupCoalescer patientLookupCoalescer;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @InjectMocks
     private PatientService patientService;
 
     @Test
     void testCreateOrUpdatePatient() {
-        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin");
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
 
         when(patientRepository.save(patient)).thenReturn(patient);
 
@@ -37,7 +73,7 @@ class PatientServiceTest {
     }
     @Test
     void testCreateOrUpdatePatient_TestBorderline() {
-        Patient patient = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", LocalDate.now(), LocalDate.now(), "admin");
+        Patient patient = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", LocalDate.now(), LocalDate.now(), "admin", 0L);
 
         when(patientRepository.save(patient)).thenReturn(patient);
 
@@ -48,7 +84,7 @@ class PatientServiceTest {
     }
     @Test
     void testCreateOrUpdatePatient_TestInDanger() {
-        Patient patient = new Patient(3L, "TestInDanger", "PrenomTest", LocalDate.of(1970, 5, 10), "M", "789 rue", "112233445", LocalDate.now(), LocalDate.now(), "admin");
+        Patient patient = new Patient(3L, "TestInDanger", "PrenomTest", LocalDate.of(1970, 5, 10), "M", "789 rue", "112233445", LocalDate.now(), LocalDate.now(), "admin", 0L);
 
         when(patientRepository.save(patient)).thenReturn(patient);
 
@@ -59,7 +95,7 @@ class PatientServiceTest {
     }
     @Test
     void testCreateOrUpdatePatient_TestEarlyOnset() {
-        Patient patient = new Patient(4L, "TestEarlyOnset", "PrenomTest", LocalDate.of(1980, 11, 15), "F", "159 rue", "556677889", LocalDate.now(), LocalDate.now(), "admin");
+        Patient patient = new Patient(4L, "TestEarlyOnset", "PrenomTest", LocalDate.of(1980, 11, 15), "F", "159 rue", "556677889", LocalDate.now(), LocalDate.now(), "admin", 0L);
 
         when(patientRepository.save(patient)).thenReturn(patient);
 
@@ -71,31 +107,171 @@ class PatientServiceTest {
     @Test
     void testGetPatientById() {
         long patientId = 1L;
-        Patient patient = new Patient(patientId, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin");
+        Patient patient = new Patient(patientId, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
 
-        when(patientRepository.findById(Long.valueOf(Long.toString(patientId)))).thenReturn(Optional.of(patient));
+        when(patientLookupCoalescer.findById(Long.valueOf(Long.toString(patientId)))).thenReturn(Optional.of(patient));
 
         Optional<Patient> retrievedPatient = patientService.getPatientById(Long.valueOf(Long.toString(patientId)));
 
         assertTrue(retrievedPatient.isPresent());
         assertEquals("TestNone", retrievedPatient.get().getNom());
     }
+
+    @Test
+    void testGetPatientsByIds() {
+        Patient cached = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        Patient stored = new Patient(3L, "TestInDanger", "PrenomTest", LocalDate.of(1970, 5, 10), "M", "789 rue", "112233445", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        Cache cache = new ConcurrentMapCache(CacheConfig.PATIENTS_CACHE);
+        cache.put(1L, cached);
+
+        when(cacheManager.getCache(CacheConfig.PATIENTS_CACHE)).thenReturn(cache);
+        when(patientRepository.findAllById(List.of(3L, 42L))).thenReturn(List.of(stored));
+
+        List<Patient> patients = patientService.getPatientsByIds(List.of(3L, 1L, 42L, 3L));
+
+        assertEquals(List.of(stored, cached), patients);
+        assertEquals(stored, cache.get(3L, Patient.class));
+        verify(patientRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetPatientById_CacheHitSkipsLookup() {
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        when(patientLookupCoalescer.findById(1L)).thenReturn(Optional.of(patient));
+
+        try (AnnotationConfigApplicationContext context = cachingContext()) {
+            PatientService cachingService = context.getBean(PatientService.class);
+
+            assertEquals(Optional.of(patient), cachingService.getPatientById(1L));
+            assertEquals(Optional.of(patient), cachingService.getPatientById(1L));
+        }
+
+        verify(patientLookupCoalescer, times(1)).findById(1L);
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void testSaveOrUpdatePatient_EvictsCachedPatient() {
+        Patient patient = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        when(patientLookupCoalescer.findById(1L)).thenReturn(Optional.of(patient));
+        when(patientRepository.save(patient)).thenReturn(patient);
+
+        try (AnnotationConfigApplicationContext context = cachingContext()) {
+            PatientService cachingService = context.getBean(PatientService.class);
+            Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.PATIENTS_CACHE);
+
+            cachingService.getPatientById(1L);
+            assertNotNull(cache.get(1L));
+            cachingService.saveOrUpdatePatient(patient);
+            assertNull(cache.get(1L));
+            cachingService.getPatientById(1L);
+        }
+
+        verify(patientLookupCoalescer, times(2)).findById(1L);
+    }
+
+    @Test
+    void testCacheConfig_BoundsCacheByDefault() {
+        try (AnnotationConfigApplicationContext context = cachingContext()) {
+            CaffeineCache cache = (CaffeineCache) context.getBean(CacheManager.class).getCache(CacheConfig.PATIENTS_CACHE);
+
+            assertEquals(10_000L, cache.getNativeCache().policy().eviction().orElseThrow().getMaximum());
+            assertTrue(cache.getNativeCache().policy().expireAfterWrite().isPresent());
+        }
+    }
     @Test
     void testDeletePatientById() {
         String patientId = "1";
 
-        doNothing().when(patientRepository).deleteById(Long.valueOf(patientId));
+        when(patientRepository.deleteRowById(Long.valueOf(patientId))).thenReturn(1);
+
+        int deleted = patientService.deletePatientById(Long.valueOf(patientId));
+
+        assertEquals(1, deleted);
+        verify(patientRepository, times(1)).deleteRowById(Long.valueOf(patientId));
+        verify(patientRepository, never()).findById(any());
+        verify(patientChangeService).record(1L, PatientChange.Type.DELETE);
+        verify(patientAuditWriter).recordAfterCommit(argThat((PatientAuditEntry entry) ->
+                entry.patientId() == 1L && entry.action() == PatientChange.Type.DELETE));
+    }
+
+    @Test
+    void testDeletePatientById_NotFound() {
+        when(patientRepository.deleteRowById(42L)).thenReturn(0);
+
+        assertEquals(0, patientService.deletePatientById(42L));
+        verifyNoInteractions(patientChangeService);
+    }
+
+    @Test
+    void testUpdatePatient() {
+        Patient patient = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", null, LocalDate.now(), "admin", 0L);
+
+        when(patientRepository.updateRow(eq(patient), any(LocalDate.class), isNull())).thenReturn(1);
+        when(patientRepository.findVersionById(2L)).thenReturn(Optional.of(5L));
+
+        int updated = patientService.updatePatient(patient, null);
+
+        assertEquals(1, updated);
+        verify(patientRepository).updateRow(patient, patient.getLastModified(), null);
+        assertEquals(5L, patient.getVersion());
+        verify(patientRepository, never()).save(any());
+        verify(patientRepository, never()).findById(any());
+        verify(patientChangeService).record(2L, PatientChange.Type.UPDATE);
+        assertEquals(PatientAuditEntry.SYSTEM_USER, patient.getWhoLastModified());
+        verify(patientAuditWriter).recordAfterCommit(argThat((PatientAuditEntry entry) ->
+                entry.action() == PatientChange.Type.UPDATE && entry.changes().get("nom").get("new").equals("TestBorderline")));
+    }
+
+    @Test
+    void testUpdatePatient_NotFound() {
+        Patient patient = new Patient(42L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", null, LocalDate.now(), "admin", 0L);
+
+        when(patientRepository.updateRow(eq(patient), any(LocalDate.class), isNull())).thenReturn(0);
+
+        assertEquals(0, patientService.updatePatient(patient, null));
+        assertNull(patient.getLastModified());
+    }
+
+    @Test
+    void testUpdatePatient_ExpectedVersion() {
+        Patient patient = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", null, LocalDate.now(), "admin", 3L);
+
+        when(patientRepository.updateRow(eq(patient), any(LocalDate.class), eq(3L))).thenReturn(1);
+
+        assertEquals(1, patientService.updatePatient(patient, 3L));
+        assertEquals(4L, patient.getVersion());
+        assertEquals(LocalDate.now(), patient.getLastModified());
+        verify(patientRepository, never()).findVersionById(any());
+        verify(patientRepository, never()).findById(any());
+    }
+
+    @Test
+    void testUpdatePatient_StaleVersion() {
+        Patient patient = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", null, LocalDate.now(), "admin", 3L);
+
+        when(patientRepository.updateRow(eq(patient), any(LocalDate.class), eq(3L))).thenReturn(0);
+        when(patientRepository.existsById(2L)).thenReturn(true);
 
-        patientService.deletePatientById(Long.valueOf(patientId));
+        assertThrows(OptimisticLockingFailureException.class, () -> patientService.updatePatient(patient, 3L));
+        assertNull(patient.getLastModified());
+    }
+
+    @Test
+    void testUpdatePatient_ExpectedVersionNotFound() {
+        Patient patient = new Patient(42L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", null, LocalDate.now(), "admin", 3L);
+
+        when(patientRepository.updateRow(eq(patient), any(LocalDate.class), eq(3L))).thenReturn(0);
+        when(patientRepository.existsById(42L)).thenReturn(false);
 
-        verify(patientRepository, times(1)).deleteById(Long.valueOf(patientId));
+        assertEquals(0, patientService.updatePatient(patient, 3L));
     }
 
     @Test
     void testGetAllPatients() {
         when(patientRepository.findAll()).thenReturn(List.of(
-                new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin"),
-                new Patient(1L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", LocalDate.now(), LocalDate.now(), "admin")
+                new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L),
+                new Patient(1L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", LocalDate.now(), LocalDate.now(), "admin", 0L)
         ));
 
         List<Patient> patients = patientService.getAllPatients();
@@ -105,4 +281,106 @@ class PatientServiceTest {
         assertEquals("TestNone", patients.get(0).getNom());
         assertEquals("TestBorderline", patients.get(1).getNom());
     }
+
+    @Test
+    void testGetPatientsAfter() {
+        Patient patient = new Patient(3L, "TestInDanger", "PrenomTest", LocalDate.of(1970, 5, 10), "M", "789 rue", "112233445", LocalDate.now(), LocalDate.now(), "admin", 0L);
+
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(10))).thenReturn(List.of(patient));
+
+        List<Patient> patients = patientService.getPatientsAfter(2L, 10);
+
+        assertEquals(1, patients.size());
+        assertEquals(3L, patients.get(0).getId());
+    }
+
+    @Test
+    void testGetPatientsAfter_FromBeginning() {
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(10))).thenReturn(List.of());
+
+        List<Patient> patients = patientService.getPatientsAfter(null, 10);
+
+        assertTrue(patients.isEmpty());
+    }
+
+    @Test
+    void testGetPatientSummariesAfter() {
+        PatientSummary summary = new PatientSummary(3L, "TestInDanger", "PrenomTest", LocalDate.of(1970, 5, 10));
+
+        when(patientRepository.findSummariesByIdGreaterThan(0L, Limit.of(10))).thenReturn(List.of(summary));
+
+        List<PatientSummary> summaries = patientService.getPatientSummariesAfter(null, 10);
+
+        assertEquals(List.of(summary), summaries);
+        verify(patientRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void testStreamPatientsAfter() {
+        Patient first = new Patient(1L, "TestNone", "PrenomTest", LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789", LocalDate.now(), LocalDate.now(), "admin", 0L);
+        Patient second = new Patient(2L, "TestBorderline", "PrenomTest", LocalDate.of(1985, 3, 20), "F", "456 rue", "987654321", LocalDate.now(), LocalDate.now(), "admin", 0L);
+
+        when(patientRepository.streamByIdGreaterThan(0L)).thenReturn(Stream.of(first, second));
+
+        List<Patient> streamed = new ArrayList<>();
+        patientService.streamPatientsAfter(null, streamed::add);
+
+        assertEquals(List.of(first, second), streamed);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchPatients() {
+        Patient patient = new Patient(4L, "TestEarlyOnset", "PrenomTest", LocalDate.of(1980, 11, 15), "F", "159 rue", "556677889", LocalDate.now(), LocalDate.now(), "admin", 0L);
+
+        when(patientRepository.findBy(any(Specification.class), any())).thenReturn(List.of(patient));
+
+        List<Patient> patients = patientService.searchPatients(new PatientSearchCriteria("TestEarly", null, null, null), null, 10);
+
+        assertEquals(List.of(patient), patients);
+    }
+
+    @Test
+    void testSearchCursorRoundTrip() {
+        PatientSearchCursor cursor = new PatientSearchCursor("O:Neil", "Anna-Lou", 42L);
+
+        assertEquals(cursor, PatientSearchCursor.decode(cursor.encode()));
+        assertNull(PatientSearchCursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> PatientSearchCursor.decode("bm90LWEtY3Vyc29y"));
+        assertThrows(IllegalArgumentException.class, () -> PatientSearchCursor.decode("NDo5OTphYmM"));
+    }
+
+    @Test
+    void testSearchCriteriaIsEmpty() {
+        assertTrue(new PatientSearchCriteria(" ", null, null, "").isEmpty());
+        assertFalse(new PatientSearchCriteria(null, null, LocalDate.of(1980, 11, 15), null).isEmpty());
+    }
+
+    @Test
+    void testPatchPatient_RejectsInvalidChanges() {
+        Map<String, Object> nullNom = new HashMap<>();
+        nullNom.put("nom", null);
+
+        assertThrows(IllegalArgumentException.class, () -> patientService.patchPatient(1L, Map.of(), null));
+        assertThrows(IllegalArgumentException.class, () -> patientService.patchPatient(1L, Map.of("createdAt", LocalDate.now()), null));
+        assertThrows(IllegalArgumentException.class, () -> patientService.patchPatient(1L, nullNom, null));
+        assertThrows(IllegalArgumentException.class, () -> patientService.patchPatient(1L, Map.of("dateDeNaissance", "1980-11-15"), null));
+        verifyNoInteractions(entityManager);
+    }
+
+    /**
+     * Builds a context holding the service behind the caching advice of {@link CacheConfig}, with the mocks
+     * of this class and without any profile properties.
+     */
+    private AnnotationConfigApplicationContext cachingContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(CacheConfig.class);
+        context.registerBean(PatientService.class, () -> new PatientService(patientRepository, entityManager,
+                patientChangeService, patientAuditWriter, null, patientLookupCoalescer,
+                context.getBean(CacheManager.class)));
+        context.refresh();
+        return context;
+    }
 }
@@ -0,0 +1,151 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.audit.PatientAuditWriter;
+import com.abernathyclinic.patient.dto.PatientSearchCriteria;
+import com.abernathyclinic.patient.dto.PatientSearchCursor;
+import com.abernathyclinic.patient.model.Patient;
+import com.abernathyclinic.patient.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link PatientService} reads and writes against an embedded H2 database, each in its own transaction as in
+ * production, so that Hibernate's version checks and the generated search queries apply.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.root=INFO",
+        "logging.level.org.springframework=INFO",
+        "spring.jpa.show-sql=false"
+})
+@Import(PatientService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientServiceTransactionTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @MockBean
+    private PatientChangeService patientChangeService;
+
+    @MockBean
+    private PatientAuditWriter patientAuditWriter;
+
+    @MockBean
+    private PatientLookupCoalescer patientLookupCoalescer;
+
+    @MockBean
+    private CacheManager cacheManager;
+
+    @Test
+    void testSaveWithoutVersionOverwritesModifiedPatient() {
+        Patient created = patientService.saveOrUpdatePatient(patient(null, "TestNone", null));
+        patientService.saveOrUpdatePatient(patient(created.getId(), "TestBorderline", 0L));
+
+        // Corps sans version, comme avant les ETags : le patient déjà modifié est écrasé
+        Patient saved = patientService.saveOrUpdatePatient(patient(created.getId(), "TestInDanger", null));
+
+        assertEquals(2L, saved.getVersion());
+        assertEquals("TestInDanger", patientRepository.findById(created.getId()).orElseThrow().getNom());
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> patientService.saveOrUpdatePatient(patient(created.getId(), "TestEarlyOnset", 1L)));
+    }
+
+    @Test
+    void testUpdateWithoutVersionReturnsStoredVersion() {
+        Patient created = patientService.saveOrUpdatePatient(patient(null, "TestNone", null));
+        patientService.saveOrUpdatePatient(patient(created.getId(), "TestBorderline", 0L));
+        Patient body = patient(created.getId(), "TestInDanger", 0L);
+
+        assertEquals(1, patientService.updatePatient(body, null));
+
+        assertEquals(2L, body.getVersion());
+        assertEquals(LocalDate.now(), patientRepository.findById(created.getId()).orElseThrow().getLastModified());
+        assertEquals(1, patientService.updatePatient(patient(created.getId(), "TestEarlyOnset", null), 2L));
+        assertEquals(3L, patientRepository.findVersionById(created.getId()).orElseThrow());
+    }
+
+    @Test
+    void testPatchReturnsNewVersion() {
+        Patient created = patientService.saveOrUpdatePatient(patient(null, "TestNone", null));
+
+        assertEquals(Optional.of(1L), patientService.patchPatient(created.getId(), Map.of("telephone", "555"), 0L));
+        assertEquals(Optional.of(2L), patientService.patchPatient(created.getId(), Map.of("telephone", "556"), null));
+        assertEquals(2L, patientRepository.findVersionById(created.getId()).orElseThrow());
+        assertEquals(Optional.empty(), patientService.patchPatient(-1L, Map.of("telephone", "557"), null));
+    }
+
+    @Test
+    void testSearchByNamePagesInNameOrder() {
+        // Homonymes de part et d'autre des limites de page, insérés dans le désordre
+        List<Patient> expected = new ArrayList<>();
+        for (String[] name : new String[][]{{"Lefort", "Anais"}, {"Lefebvre", "Marc"}, {"Lefebvre", "Anatole"},
+                {"Lefebvre", "Marc"}, {"Lefevre", "Anais"}, {"Lefebvre", "Marc"}, {"Durand", "Anais"}}) {
+            Patient saved = patientService.saveOrUpdatePatient(patient(null, name[0], name[1], null));
+            if (saved.getNom().startsWith("Lef")) {
+                expected.add(saved);
+            }
+        }
+        expected.sort(Comparator.comparing(Patient::getNom).thenComparing(Patient::getPrenom)
+                .thenComparing(Patient::getId));
+
+        assertEquals(ids(expected), ids(searchAllPages(new PatientSearchCriteria("Lef", null, null, null))));
+        assertEquals(List.of(expected.get(0).getId()),
+                ids(searchAllPages(new PatientSearchCriteria("Lefebvre", "Ana", null, null))));
+        List<Patient> byPrenom = searchAllPages(new PatientSearchCriteria(null, "Ana", null, null));
+        assertEquals(List.of("Anais", "Anais", "Anais", "Anatole"), byPrenom.stream().map(Patient::getPrenom).toList());
+        assertTrue(byPrenom.get(0).getId() < byPrenom.get(1).getId());
+        assertTrue(byPrenom.get(1).getId() < byPrenom.get(2).getId());
+    }
+
+    /**
+     * Follows the cursor of two-patient pages until the last page, as a client would.
+     */
+    private List<Patient> searchAllPages(PatientSearchCriteria criteria) {
+        List<Patient> results = new ArrayList<>();
+        PatientSearchCursor cursor = null;
+        List<Patient> page;
+        do {
+            page = patientService.searchPatients(criteria, cursor, 2);
+            results.addAll(page);
+            if (!page.isEmpty()) {
+                Patient last = page.get(page.size() - 1);
+                cursor = PatientSearchCursor.decode(
+                        new PatientSearchCursor(last.getNom(), last.getPrenom(), last.getId()).encode());
+            }
+        } while (page.size() == 2);
+        return results;
+    }
+
+    private static List<Long> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getId).toList();
+    }
+
+    private static Patient patient(Long id, String nom, Long version) {
+        return patient(id, nom, "PrenomTest", version);
+    }
+
+    private static Patient patient(Long id, String nom, String prenom, Long version) {
+        return new Patient(id, nom, prenom, LocalDate.of(1990, 1, 1), "M", "123 rue", "123456789",
+                null, null, null, version);
+    }
+}
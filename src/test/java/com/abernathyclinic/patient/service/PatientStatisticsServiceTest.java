@@ -0,0 +1,136 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.dto.PatientStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientStatisticsServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 24);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private PatientStatisticsService patientStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        patientStatisticsService = new PatientStatisticsService(jdbcTemplate, transactionManager, new int[]{30, 60});
+    }
+
+    @Test
+    void testGetStatistics_CountsPatientsByDefault() throws Exception {
+        returnRows(new Object[]{0, "F", 2L}, new Object[]{0, "M", 1L}, new Object[]{2, "M", 3L});
+
+        PatientStatistics statistics = patientStatisticsService.getStatistics(TODAY);
+
+        assertEquals(new PatientStatistics(TODAY, 6, List.of(
+                new PatientStatistics.AgeBracket("0-29", 0, 29, 3, Map.of("F", 2L, "M", 1L)),
+                new PatientStatistics.AgeBracket("30-59", 30, 59, 0, Map.of()),
+                new PatientStatistics.AgeBracket("60+", 60, null, 3, Map.of("M", 3L))
+        )), statistics);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class),
+                eq(Date.valueOf("1994-06-24")), eq(Date.valueOf("1964-06-24")));
+        assertTrue(sql.getValue().contains("FROM patients"));
+    }
+
+    @Test
+    void testInstallTriggers_SkippedOutsideMariaDb() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        patientStatisticsService.installTriggers();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void testInstallTriggers_CountsExistingPatientsOnce() throws Exception {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MariaDB");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1, 3);
+
+        patientStatisticsService.installTriggers();
+        patientStatisticsService.installTriggers();
+
+        for (String trigger : PatientStatisticsService.CREATE_TRIGGER_SQL) {
+            verify(jdbcTemplate).execute(trigger);
+        }
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO patient_counts_by_birth_date SELECT"));
+        verify(transactionManager, times(1)).commit(any());
+
+        returnRows(new Object[]{1, "F", 4L});
+        assertEquals(4, patientStatisticsService.getStatistics(TODAY).brackets().get(1).total());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class),
+                eq(1994), eq(1964), eq(1994), eq(1964),
+                eq(Date.valueOf("1994-06-24")), eq(Date.valueOf("1964-06-24")),
+                eq(Date.valueOf("1994-01-01")), eq(Date.valueOf("1994-12-31")),
+                eq(Date.valueOf("1964-01-01")), eq(Date.valueOf("1964-12-31")));
+        assertTrue(sql.getValue().contains("FROM patient_counts_by_birth_year"));
+        assertFalse(sql.getValue().contains("FROM patients"));
+    }
+
+    @Test
+    void testRecordBulkInsert_CountsBatchWithoutTriggers() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MariaDB");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(3);
+        patientStatisticsService.installTriggers();
+
+        List<Long> ids = patientStatisticsService.recordBulkInsert(() -> {
+            verify(jdbcTemplate).execute("SET @patient_statistics_deferred = 1");
+            return List.of(7L, 8L);
+        });
+
+        assertEquals(List.of(7L, 8L), ids);
+        verify(jdbcTemplate).execute("SET @patient_statistics_deferred = NULL");
+        verify(jdbcTemplate).update(startsWith("INSERT INTO patient_counts_by_birth_date"), eq(7L), eq(8L));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO patient_counts_by_birth_year"), eq(7L), eq(8L));
+    }
+
+    @Test
+    void testConstructor_RejectsUnorderedBrackets() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PatientStatisticsService(jdbcTemplate, transactionManager, new int[]{60, 30}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PatientStatisticsService(jdbcTemplate, transactionManager, new int[0]));
+    }
+
+    private void returnRows(Object[]... rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                when(resultSet.getInt("bracket")).thenReturn((Integer) row[0]);
+                when(resultSet.getString("genre")).thenReturn((String) row[1]);
+                when(resultSet.getLong("patients")).thenReturn((Long) row[2]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
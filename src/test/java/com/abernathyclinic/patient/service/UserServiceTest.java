@@ -0,0 +1,64 @@
+package com.abernathyclinic.patient.service;
+
+import com.abernathyclinic.patient.model.User;
+import com.abernathyclinic.patient.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testLoadUserByUsername_Cached() {
+        User user = new User(1L, "organizer_user", "hash", "Organizer");
+
+        when(userRepository.findByUsername("organizer_user")).thenReturn(Optional.of(user));
+
+        assertSame(user, userService.loadUserByUsername("organizer_user"));
+        assertSame(user, userService.loadUserByUsername("organizer_user"));
+        verify(userRepository, times(1)).findByUsername("organizer_user");
+    }
+
+    @Test
+    void testLoadUserByUsername_NotFound() {
+        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("unknown"));
+    }
+
+    @Test
+    void testUpdatePassword_EvictsUser() {
+        User cached = new User(1L, "organizer_user", "old-hash", "Organizer");
+        User stored = new User(1L, "organizer_user", "old-hash", "Organizer");
+
+        when(userRepository.findByUsername("organizer_user")).thenReturn(Optional.of(cached), Optional.of(stored), Optional.of(stored));
+        when(userRepository.save(stored)).thenReturn(stored);
+        userService.loadUserByUsername("organizer_user");
+
+        userService.updatePassword(cached, "new-hash");
+
+        assertEquals("old-hash", cached.getPassword());
+        assertEquals("new-hash", userService.loadUserByUsername("organizer_user").getPassword());
+        verify(userRepository, times(3)).findByUsername("organizer_user");
+    }
+}